@@ -35,12 +35,75 @@ public interface Board
         void makeMove(int house, int playerNum) throws InvalidHouseException, InvalidMoveException;
         
         
+        /**
+         * make a move if it is legal, reporting why it is not instead of throwing an exception.
+         * {@link Board#makeMove makeMove()} behaves the same but throws for invalid moves.
+         *
+         * @param house in range 1..6 representing the house position (starting from anticlockwise)
+         *
+         * @param playerNum in range 1..2
+         *
+         * @return {@link MoveResult#OK} if the move was made, otherwise the reason it was not
+         */
+        MoveResult tryMove(int house, int playerNum);
+        
+        
+        /**
+         * make a move as {@link Board#makeMove makeMove()} does, returning a record of the move
+         * that {@link Board#unmakeMove unmakeMove()} uses to restore the board exactly.
+         * This lets a search explore moves on a single board instead of cloning it.
+         *
+         * @return the undo record: the house sown from, the number of seeds sown
+         * and the houses captured (and so the score gained)
+         *
+         * @throws InvalidHouseException see {@link Board#makeMove makeMove()}
+         *
+         * @throws InvalidMoveException see {@link Board#makeMove makeMove()}
+         */
+        int makeUndoableMove(int house, int playerNum) throws InvalidHouseException, InvalidMoveException;
+        
+        /**
+         * take back the most recent move made with {@link Board#makeUndoableMove makeUndoableMove()}.
+         * Moves must be taken back in the reverse order they were made.
+         *
+         * @param undo the record returned when the move was made
+         */
+        void unmakeMove(int undo);
+        
+        
+        /**
+         * find the houses the specified player may legally move from, applying the same rules
+         * as {@link Board#makeMove makeMove()}: the house must hold seeds, and if the opponent's
+         * houses are all empty the move must put seeds on their side whenever some move can.
+         *
+         * @param playerNum in range 1..2
+         *
+         * @return a mask with bit (house - 1) set for each legal house
+         */
+        int getLegalMoves(int playerNum);
+        
+        
         /**
          * the number of seeds in the specified house of the specified player. See {@link Board#makeMove makeMove()} for parameterDetails
 		 *
          */
         int getSeeds(int house, int playerNum) throws InvalidHouseException;
         
+        /**
+         * copy the number of seeds in every house into an array, without range checks: player 1's
+         * houses 1..6 at indices 0..5 and player 2's houses 1..6 at indices 6..11
+         *
+         * @param houses an array of at least 12 elements to fill
+         */
+        void getHouses(int[] houses);
+        
+        /**
+         * the total number of seeds in the houses of the specified player (not counting their score house)
+         *
+         * @param playerNum in range 1..2
+         */
+        int getSideSeeds(int playerNum);
+        
         /**
          * sow a seed in a location: increase the number of seeds already there by one
          **/
@@ -68,6 +131,16 @@ public interface Board
         void setScore(int seeds, int playerNum);
         
         
+        /**
+         * a 64-bit Zobrist key of the position: the seeds in every house, both scores and the
+         * player to move. Equal positions always have equal keys and different positions
+         * almost never do, so the key can index repetition sets and transposition tables.
+         *
+         * @param playerToMove the player whose turn it is (1 or 2)
+         */
+        long getPositionKey(int playerToMove);
+        
+        
         /**
          * override the toString method to provide a summary of the board state
          **/
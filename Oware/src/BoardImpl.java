@@ -34,6 +34,23 @@ public class BoardImpl implements Board, Serializable {
     private int p1Score;
     private int p2Score;
     
+    // Zobrist keys of the houses and of the scores, kept up to date by every
+    // mutator.
+    private long houseKey;
+    private long scoreKey;
+    
+    // Running totals of the seeds in each player's houses.
+    private int p1Seeds;
+    private int p2Seeds;
+    
+    // Counts of vulnerable houses and kroos for the evaluation, packed as in
+    // MoveKernel and kept up to date by every mutator.
+    private int features;
+    
+    // The features of the houses last passed to sownKey, which reads them in
+    // the same loop.
+    private transient int sownFeatures;
+    
     /**
      * Default constructor for BoardImpl class.
      */
@@ -45,96 +62,246 @@ public class BoardImpl implements Board, Serializable {
         
         p1Score = 0;
         p2Score = 0;
+        
+        houseKey = Zobrist.houses(houses);
+        scoreKey = 0;
+        
+        p1Seeds = 24;
+        p2Seeds = 24;
+        
+        features = MoveKernel.features(houses);
+    }
+    
+    /**
+     * Constructor for BoardImpl class copying the position of any board.
+     * 
+     * @param board the board to copy.
+     */
+    public BoardImpl(Board board) {
+        houses = new int[12];
+        board.getHouses(houses);
+        
+        p1Score = board.getScore(1);
+        p2Score = board.getScore(2);
+        
+        houseKey = Zobrist.houses(houses);
+        scoreKey = Zobrist.score(1, p1Score) ^ Zobrist.score(2, p2Score);
+        
+        p1Seeds = board.getSideSeeds(1);
+        p2Seeds = board.getSideSeeds(2);
+        
+        features = MoveKernel.features(houses);
     }
     
-    private BoardImpl(int[] houses, int p1Score, int p2Score) {
-        this.houses = houses;
-        this.p1Score = p1Score;
-        this.p2Score = p2Score;
+    private BoardImpl(BoardImpl other) {
+        this.houses = Arrays.copyOf(other.houses, other.houses.length);
+        this.p1Score = other.p1Score;
+        this.p2Score = other.p2Score;
+        this.houseKey = other.houseKey;
+        this.scoreKey = other.scoreKey;
+        this.p1Seeds = other.p1Seeds;
+        this.p2Seeds = other.p2Seeds;
+        this.features = other.features;
     }
     
     @Override
     public void makeMove(int house, int playerNum) throws InvalidHouseException,
             InvalidMoveException {
+        makeUndoableMove(house, playerNum);
+    }
+    
+    @Override
+    public MoveResult tryMove(int house, int playerNum) {
+        MoveResult result = checkLegalMove(house, playerNum);
         
-        // Make an array holding the opponent's houses.
-        int[] opponentHouses = new int[6];
-        System.arraycopy(houses, (3 - playerNum)*6 - 6, opponentHouses, 0, 6);
-        
-        // Check conditions for legal move.
+        if(result == MoveResult.OK) {
+            play(house, playerNum);
+        }
+        return result;
+    }
+    
+    @Override
+    public int makeUndoableMove(int house, int playerNum) throws 
+            InvalidHouseException, InvalidMoveException {
         
         // Check house number and player number are valid.
         checkInvalidHouse(house, playerNum);
         
+        checkLegalMove(house, playerNum).raise();
+        
+        return play(house, playerNum);
+    }
+    
+    @Override
+    public void unmakeMove(int undo) {
+        int playerNum = MoveKernel.undoPlayer(undo);
+        int origin = MoveKernel.undoOrigin(undo);
+        int seeds = MoveKernel.undoSeeds(undo);
+        
+        addScore(-MoveKernel.undoScore(undo), playerNum);
+        
+        long before = sownKey(origin, seeds);
+        int featuresBefore = sownFeatures;
+        MoveKernel.unmove(houses, undo);
+        houseKey ^= before ^ sownKey(origin, seeds);
+        features += sownFeatures - featuresBefore;
+        
+        int fed = MoveKernel.fed(origin, seeds);
+        addSideSeeds(fed, playerNum);
+        addSideSeeds(MoveKernel.undoScore(undo) - fed, 3 - playerNum);
+    }
+    
+    /**
+     * Plays a move that is known to be legal, for example one taken from
+     * {@link #getLegalMoves(int) getLegalMoves}, without checking it again.
+     * 
+     * @param house the house to move from.
+     * @param playerNum the player making the move.
+     * @return the undo record of the move, for {@link #unmakeMove(int)}.
+     */
+    public int makeLegalMove(int house, int playerNum) {
+        return play(house, playerNum);
+    }
+    
+    /**
+     * Plays a move that has already been checked.
+     * 
+     * @return the undo record of the move.
+     */
+    private int play(int house, int playerNum) {
+        int origin = houseToIndexConversion(house, playerNum);
+        int seeds = houses[origin];
+        
+        long before = sownKey(origin, seeds);
+        int featuresBefore = sownFeatures;
+        int undo = MoveKernel.move(houses, origin, playerNum);
+        houseKey ^= before ^ sownKey(origin, seeds);
+        features += sownFeatures - featuresBefore;
+        
+        // Reap seeds.
+        int captured = MoveKernel.undoScore(undo);
+        addScore(captured, playerNum);
+        
+        int fed = MoveKernel.fed(origin, seeds);
+        addSideSeeds(-fed, playerNum);
+        addSideSeeds(fed - captured, 3 - playerNum);
+        
+        return undo;
+    }
+    
+    /**
+     * The combined key of the houses a move from origin changes: the origin
+     * and every house it sows into (which includes any it captures). The sum
+     * of their features, as {@link MoveKernel#sownFeatures} gives it, is
+     * left in sownFeatures.
+     * 
+     * @param origin index of the house sown from.
+     * @param seeds number of seeds sown.
+     * @return the XOR of the keys of those houses as they are now.
+     */
+    private long sownKey(int origin, int seeds) {
+        int count = Math.min(seeds + 1, MoveKernel.HOUSES);
+        int index = origin;
+        long key = 0;
+        int sown = 0;
+        
+        for(int i = 0; i < count; i++) {
+            key ^= Zobrist.house(index, houses[index]);
+            sown += MoveKernel.houseFeatures(index, houses[index]);
+            index = index == MoveKernel.HOUSES - 1 ? 0 : index + 1;
+        }
+        sownFeatures = sown;
+        return key;
+    }
+    
+    /**
+     * Checks the conditions for a legal move.
+     * 
+     * @param house the house to move from.
+     * @param playerNum the player making the move.
+     * 
+     * @return {@link MoveResult#OK} if the move is legal, otherwise the
+     * reason it is not.
+     */
+    private MoveResult checkLegalMove(int house, int playerNum) {
+        
+        // Check house number and player number are valid.
+        if(!(playerNum < 3 && playerNum > 0) || !(house < 7 && house > 0)) {
+            return MoveResult.OUT_OF_RANGE;
+        }
+        
         // Check selected house has non-zero number of seeds
-        if(getSeeds(house, playerNum) == 0) {
-            throw new InvalidMoveException("Invalid input - The selected " +
-                    "house contains no seeds.");
+        if(houses[houseToIndexConversion(house, playerNum)] == 0) {
+            return MoveResult.EMPTY_HOUSE;
+        }
+        
+        // Check for starvation. If the opponent's houses are all empty, only
+        // moves that put seeds on their side are legal (if there are any).
+        if((getLegalMoves(playerNum) & (1 << (house - 1))) == 0) {
+            return MoveResult.STARVATION;
+        }
+        
+        return MoveResult.OK;
+    }
+    
+    @Override
+    public int getLegalMoves(int playerNum) {
+        if(!(playerNum < 3 && playerNum > 0)) {
+            throw new IllegalArgumentException("playerNum should be 1 or 2");
         }
         
-        // Check for starvation. If the opponent's houses are all empty, they
-        // may be at the risk of starvation.
-        if(Arrays.equals(opponentHouses, new int[6])) {
+        int base = MoveKernel.base(playerNum);
+        int nonEmpty = 0;
+        int feeding = 0;
+        
+        for(int i = 0; i < 6; i++) {
+            int seeds = houses[base + i];
             
-            // If a move has been made that will not put seeds on the opponent's
-            // side of the board.
-            if(!(getSeeds(house, playerNum) > 6 - house)) {
-                
-                // Check other houses.
-                for(int i = 1; i < 7; i++) {
-                    
-                    // If selecting a different house would put seeds on the
-                    // opponent's side of the board.
-                    if(getSeeds(i, playerNum) > 6 - i) {
-                        
-                        throw new InvalidMoveException("Invalid input - It " +
-                                "is forbidden to starve your opponent.");
-                    }
-                }
+            if(seeds != 0) {
+                nonEmpty |= 1 << i;
             }
-        }
-               
-        // Move seems legit. Proceed.
-        else {
-
-            int seeds = getSeeds(house, playerNum);
-            setSeeds(0, house, playerNum);
-
-            int index = houseToIndexConversion(house, playerNum);
-
-            // Only loop for the number of seeds.
-            for(int i = 1; i < seeds + 1; i++) {
-
-                // Look at the next house.
-                index++;
-
-                // Do not sow in starting house.
-                if(!(i%12 == 0)) {
-                    
-                    sowSeed(indexToHouseConversion(index),
-                            indexToPlayerConversion(index));
-                }
+            if(MoveKernel.feeds(i + 1, seeds)) {
+                feeding |= 1 << i;
             }
-            
-            // After loop, index will be pointing at last house.
-            seeds = getSeeds(indexToHouseConversion(index),
-                            indexToPlayerConversion(index));
-            
-            // Reap seeds. 
-            while((seeds == 2 || seeds == 3) && (indexToPlayerConversion(index)
-                    == 3 - playerNum)) {
-
-                addScore(seeds, playerNum);
-
-                setSeeds(0, indexToHouseConversion(index), 
-                        indexToPlayerConversion(index));
-                
-                index--;
-
-                seeds = getSeeds(indexToHouseConversion(index),
-                        indexToPlayerConversion(index));
+        }
+        
+        // If no move feeds a starved opponent, any move may be played.
+        if(feeding != 0 && opponentStarved(playerNum)) {
+            return feeding;
+        }
+        return nonEmpty;
+    }
+    
+    /**
+     * Finds the legal moves of a player that capture, using
+     * {@link MoveKernel#captures(int[], int)} rather than playing them.
+     * 
+     * @param playerNum the player about to move.
+     * @return a mask with bit (house - 1) set for each legal house whose
+     * move captures.
+     */
+    public int getCaptureMoves(int playerNum) {
+        int legal = getLegalMoves(playerNum);
+        int base = MoveKernel.base(playerNum);
+        int captures = 0;
+        
+        for(int i = 0; i < 6; i++) {
+            if((legal & (1 << i)) != 0 && 
+                    MoveKernel.captures(houses, base + i)) {
+                captures |= 1 << i;
             }
         }
+        return captures;
+    }
+    
+    /**
+     * Checks whether all of the opponent's houses are empty.
+     * 
+     * @param playerNum the player about to move.
+     * @return <code>true</code> if the opponent of playerNum has no seeds.
+     */
+    private boolean opponentStarved(int playerNum) {
+        return getSideSeeds(3 - playerNum) == 0;
     }
     
     /**
@@ -177,17 +344,78 @@ public class BoardImpl implements Board, Serializable {
         return houses[houseToIndexConversion(house, playerNum)];
     }
 
+    @Override
+    public void getHouses(int[] houses) {
+        System.arraycopy(this.houses, 0, houses, 0, this.houses.length);
+    }
+
     @Override
     public void sowSeed(int house, int playerNum) throws InvalidHouseException {
         checkInvalidHouse(house, playerNum);
-        houses[houseToIndexConversion(house, playerNum)]++;
+        int index = houseToIndexConversion(house, playerNum);
+        setHouse(index, houses[index] + 1);
     }
 
     @Override
     public void setSeeds(int seeds, int house, int playerNum) throws 
             InvalidHouseException {
         checkInvalidHouse(house, playerNum);
-        houses[houseToIndexConversion(house, playerNum)] = seeds;
+        setHouse(houseToIndexConversion(house, playerNum), seeds);
+    }
+    
+    private void setHouse(int index, int seeds) {
+        houseKey ^= Zobrist.house(index, houses[index]) ^ 
+                Zobrist.house(index, seeds);
+        addSideSeeds(seeds - houses[index], indexToPlayerConversion(index));
+        features += MoveKernel.houseFeatures(index, seeds) - 
+                MoveKernel.houseFeatures(index, houses[index]);
+        houses[index] = seeds;
+    }
+    
+    private void addSideSeeds(int seeds, int playerNum) {
+        if(playerNum == 1) {
+            p1Seeds += seeds;
+        }
+        else {
+            p2Seeds += seeds;
+        }
+    }
+
+    @Override
+    public int getSideSeeds(int playerNum) {
+        if(playerNum == 1) {
+            return p1Seeds;
+        }
+        else if(playerNum == 2) {
+            return p2Seeds;
+        }
+        else {
+            throw new IllegalArgumentException("playerNum should be 1 or 2");
+        }
+    }
+
+    /**
+     * The number of a player's houses holding 1 or 2 seeds, which the
+     * opponent can capture by sowing a last seed into them.
+     * 
+     * @param playerNum the player (1 or 2).
+     * @return the count, kept up to date as moves are made.
+     */
+    public int getVulnerableHouses(int playerNum) {
+        return MoveKernel.featureCount(features, MoveKernel.VULNERABLE_SHIFT,
+                playerNum);
+    }
+    
+    /**
+     * The number of a player's houses holding enough seeds to sow around the
+     * whole board (kroos).
+     * 
+     * @param playerNum the player (1 or 2).
+     * @return the count, kept up to date as moves are made.
+     */
+    public int getKrooHouses(int playerNum) {
+        return MoveKernel.featureCount(features, MoveKernel.KROO_SHIFT,
+                playerNum);
     }
 
     @Override
@@ -206,51 +434,59 @@ public class BoardImpl implements Board, Serializable {
     @Override
     public void addScore(int seeds, int playerNum) {
         if(playerNum == 1) {
-            p1Score += seeds;
+            setScore(p1Score + seeds, playerNum);
         }
         if(playerNum == 2) {
-            p2Score += seeds;
+            setScore(p2Score + seeds, playerNum);
         }
     }
 
     @Override
     public void setScore(int seeds, int playerNum) {
         if(playerNum == 1) {
+            scoreKey ^= Zobrist.score(1, p1Score) ^ Zobrist.score(1, seeds);
             p1Score = seeds;
         }
         else if(playerNum == 2) {
+            scoreKey ^= Zobrist.score(2, p2Score) ^ Zobrist.score(2, seeds);
             p2Score = seeds;
         }
     }
 
+    @Override
+    public long getPositionKey(int playerToMove) {
+        return houseKey ^ scoreKey ^ Zobrist.side(playerToMove);
+    }
+
     @Override
     public Board clone() {
-        return new BoardImpl(Arrays.copyOf(houses, houses.length), p1Score, 
-                p2Score);
+        return new BoardImpl(this);
     }
     
     @Override
     public String toString() {
-        String description = new String();
+        StringBuilder description = new StringBuilder();
         
         // SeedNumber(House i) : PlayerNumber PlayerScore
         for(int i = 0; i < 12; i++) {
-            description += houses[i] + " ";
+            description.append(houses[i]).append(' ');
         }
         
-        description += ": " + 1 + " " + p1Score + " " + 2 + " " + p2Score;
-        return description;
+        description.append(": 1 ").append(p1Score).append(" 2 ")
+                .append(p2Score);
+        return description.toString();
     }
 
     @Override
     public int hashCode() {
-        int hash = 7;
-        hash = 97 * hash + Arrays.hashCode(this.houses);
-        return hash;
+        
+        // Only the houses take part in equals, so only they are hashed.
+        return (int) (houseKey ^ (houseKey >>> 32));
     }
 
     @Override
     public boolean equals(Object obj) {
+        obj = ReadOnlyBoard.unwrap(obj);
         if (obj == null) {
             return false;
         }
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import utilities.LongHashSet;
+
+/**
+ * Builds an {@link OpeningBook} from search results.
+ *
+ * Results are gathered as a weight for each move of each position, so the
+ * results of several searches or games can be added together before the
+ * book is written. {@link #explore(int)} fills the book by deep search: for
+ * each side in turn, it searches every position that side can reach in the
+ * first plies by following its own book moves against every reply.
+ *
+ * Usage: <code>java BookBuilder file [plies] [depth]</code>
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class BookBuilder {
+
+    /**
+     * The number of plies from the start the book covers by default.
+     */
+    public static final int DEFAULT_PLIES = 6;
+
+    /**
+     * The depth each book position is searched to by default.
+     */
+    public static final int DEFAULT_DEPTH = 14;
+
+    private final Map<Long, int[]> weights;
+    private final SearchEngine engine;
+    private final int depth;
+    private final LongHashSet explored;
+
+    /**
+     * Constructor for BookBuilder class.
+     *
+     * @param depth the depth to search each book position to.
+     */
+    public BookBuilder(int depth) {
+        if(depth < 1 || depth > SearchEngine.MAX_DEPTH) {
+            throw new IllegalArgumentException("depth should be from 1 to " +
+                    SearchEngine.MAX_DEPTH);
+        }
+
+        this.weights = new HashMap<>();
+        this.engine = new SearchEngine();
+        this.depth = depth;
+        this.explored = new LongHashSet();
+    }
+
+    /**
+     * Builds a book file.
+     *
+     * @param args the file to write, the number of plies to cover (default
+     * 6) and the depth to search to (default 14).
+     * @throws IOException if the file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1) {
+            System.err.println("Usage: java BookBuilder file [plies] [depth]");
+            return;
+        }
+
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) :
+                DEFAULT_PLIES;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) :
+                DEFAULT_DEPTH;
+
+        long start = System.nanoTime();
+        BookBuilder builder = new BookBuilder(depth);
+        builder.explore(plies);
+        builder.write(new File(args[0]));
+
+        System.out.println(String.format("%d positions in %d s",
+                builder.positions(),
+                (System.nanoTime() - start) / 1000000000L));
+    }
+
+    /**
+     * Adds weight to a move of a position.
+     *
+     * @param key the {@link Board#getPositionKey(int) position key} with the
+     * player to move.
+     * @param move the house moved from (1..6).
+     * @param weight the weight to add.
+     */
+    public void add(long key, int move, int weight) {
+        if(move < 1 || move > 6) {
+            throw new IllegalArgumentException("move should be from 1 to 6");
+        }
+
+        int[] moves = weights.get(key);
+
+        if(moves == null) {
+            moves = new int[7];
+            weights.put(key, moves);
+        }
+        moves[move] += weight;
+    }
+
+    /**
+     * Searches a position and adds a weight of 1 to the best move found.
+     *
+     * @param board the position.
+     * @param playerNum the player to move.
+     * @return the best move found.
+     */
+    public int addSearch(Board board, int playerNum) {
+        int move = engine.search(board, playerNum, Long.MAX_VALUE, depth);
+        add(board.getPositionKey(playerNum), move, 1);
+        return move;
+    }
+
+    /**
+     * Searches the positions each side can reach in the first plies from the
+     * start, following its own book moves against every reply.
+     *
+     * @param plies the number of plies from the start to cover.
+     */
+    public void explore(int plies) {
+        for(int side = 1; side < 3; side++) {
+            explored.clear();
+            explore(new BoardImpl(), 1, plies, side);
+        }
+    }
+
+    /**
+     * @return the number of positions in the book so far.
+     */
+    public int positions() {
+        return weights.size();
+    }
+
+    /**
+     * Writes the book in the format {@link OpeningBook} maps.
+     *
+     * @param file the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+        long[] keys = new long[weights.size()];
+        int records = 0;
+        int i = 0;
+
+        for(Map.Entry<Long, int[]> entry : weights.entrySet()) {
+            keys[i++] = entry.getKey();
+
+            for(int move = 1; move < 7; move++) {
+                if(entry.getValue()[move] != 0) {
+                    records++;
+                }
+            }
+        }
+
+        // Signed order, as the book compares keys as longs.
+        Arrays.sort(keys);
+
+        try(DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(records);
+
+            for(long key : keys) {
+                int[] moves = weights.get(key);
+
+                for(int move = 1; move < 7; move++) {
+                    if(moves[move] != 0) {
+                        out.writeLong(key);
+                        out.writeInt(move);
+                        out.writeInt(moves[move]);
+                    }
+                }
+            }
+        }
+    }
+
+    private void explore(BoardImpl board, int playerNum, int plies,
+            int side) {
+        int legal = board.getLegalMoves(playerNum);
+
+        if(plies == 0 || legal == 0 || board.getScore(1) > 24 ||
+                board.getScore(2) > 24 ||
+                !explored.add(board.getPositionKey(playerNum))) {
+            return;
+        }
+
+        // The book side plays its book move, the other side anything.
+        if(playerNum == side) {
+            legal = 1 << (addSearch(board, playerNum) - 1);
+        }
+
+        for(int house = 1; house < 7; house++) {
+            if((legal & (1 << (house - 1))) != 0) {
+                int undo = board.makeLegalMove(house, playerNum);
+                explore(board, 3 - playerNum, plies - 1, side);
+                board.unmakeMove(undo);
+            }
+        }
+    }
+}
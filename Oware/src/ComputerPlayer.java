@@ -18,46 +18,325 @@
 
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
- * {Insert Description of Class ComputerPlayer Here}
- * 
+ * A player that chooses its moves with a {@link SearchEngine}.
+ *
+ * Each move is searched by iterative deepening until the deadline set by the
+ * {@link TimeControl#getDefault() default time control}, a safety margin
+ * short of the one second allowed by the Player contract, and the best move
+ * of the deepest completed iteration is played. The number of positions
+ * searched for the last move is kept for reporting throughput.
+ *
+ * The kind of search is chosen with {@link #setSearchMode(SearchMode)}. By
+ * default it is a {@link LazySmpSearch} when more than one thread is set. The
+ * number of threads is set per player, so that two computer players on one
+ * host can share its cores.
+ *
+ * If the <code>oware.endgame</code> system property names an endgame database
+ * file, the serial and Lazy SMP searches map it and look up positions with
+ * few seeds left instead of searching them. If the <code>oware.book</code>
+ * property names an {@link OpeningBook}, positions in it are played from the
+ * book without searching. If the <code>oware.eval.weights</code> property
+ * names a weights file written by {@link EvaluationTuner}, the searches
+ * evaluate positions with its weights.
+ *
+ * With {@link #setPondering(boolean) pondering} on, the player goes on
+ * searching with a {@link Ponderer} while the opponent chooses a reply, and
+ * its next search starts from the results left in the transposition table.
+ * This only helps the serial and Lazy SMP searches, which keep a table, and
+ * is meant for games against a human, as it takes processor time from a
+ * computer opponent on the same host.
+ *
  * @author Alistair Madden
  * @version 0.1
  */
-class ComputerPlayer implements Player {
+class ComputerPlayer implements Player, Serializable {
+
+    private static final Logger LOGGER =
+            Logger.getLogger(ComputerPlayer.class.getName());
+
+    private final String name;
+    private long moveTime;
+    private int threads;
+    private SearchMode mode;
+    private boolean pondering;
+
+    private transient InputStream input;
+    private transient PrintStream output;
+    private transient MoveSearch engine;
+    private transient Ponderer ponderer;
+
+    private long lastNodes;
+    private int lastDepth;
+    private long lastNanos;
+    private long lastPonderNodes;
 
-    
-    
     public ComputerPlayer() {
+        this("Computer");
     }
 
-    ComputerPlayer(String player1) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    ComputerPlayer(String name) {
+        this.name = name;
+        this.moveTime = TimeControl.getDefault().getSearchTime();
+        this.threads = 1;
+        this.mode = SearchMode.LAZY_SMP;
+
+        // Read any weights file now rather than during the first search.
+        Evaluation.getDefault();
     }
 
     @Override
     public int getMove(Board b, int playerNum) throws QuitGameException {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        long start = System.nanoTime();
+
+        // The opponent has moved, so the table is ours again.
+        lastPonderNodes = ponderer == null ? 0 : ponderer.stop();
+
+        int bookMove = bookMove(b, playerNum);
+
+        if(bookMove != 0) {
+            lastNodes = 0;
+            lastDepth = 0;
+            lastNanos = 0;
+
+            LOGGER.log(Level.FINE, "{0}: house {1} from the book",
+                    new Object[] {name, bookMove});
+            return bookMove;
+        }
+
+        if(engine == null) {
+            engine = mode.create(threads);
+        }
+
+        // The time control's deadline applies even if a longer time was set.
+        long deadline = Math.min(start + moveTime * 1000000L,
+                TimeControl.getDefault().deadline(start));
+        int move = engine.search(b, playerNum, deadline);
+
+        lastNanos = System.nanoTime() - start;
+        lastNodes = engine.getNodes();
+        lastDepth = engine.getCompletedDepth();
+
+        if(LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "{0}: house {1}, depth {2}, score {3}, " +
+                    "{4} nodes in {5} ms ({6} nodes/s)", new Object[] {name,
+                    move, lastDepth, engine.getBestScore(), lastNodes,
+                    lastNanos / 1000000, getLastNodesPerSecond()});
+        }
+
+        if(pondering) {
+            ponder(b, playerNum, move);
+        }
+
+        return move;
     }
 
     @Override
     public boolean isComputer() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return true;
     }
 
     @Override
     public void setIn(InputStream in) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        this.input = in;
     }
 
     @Override
     public void setOut(PrintStream out) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        this.output = out;
     }
 
     String getName() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return name;
+    }
+
+    /**
+     * Sets how long each move is searched for. The search still stops at
+     * the deadline of the default time control if that comes first.
+     *
+     * @param millis the search time in milliseconds.
+     */
+    public void setMoveTime(long millis) {
+        if(millis <= 0) {
+            throw new IllegalArgumentException("Move time must be positive.");
+        }
+        this.moveTime = millis;
+    }
+
+    /**
+     * Sets how many threads each move is searched with. The search, and with
+     * it the transposition table, is rebuilt before the next move.
+     *
+     * @param threads the number of threads, at least 1.
+     */
+    public void setThreads(int threads) {
+        if(threads < 1) {
+            throw new IllegalArgumentException("threads should be at least 1");
+        }
+
+        if(threads != this.threads) {
+            discardEngine();
+            this.threads = threads;
+        }
+    }
+
+    /**
+     * Sets the kind of search used for each move. The search is rebuilt
+     * before the next move.
+     *
+     * @param mode the kind of search.
+     */
+    public void setSearchMode(SearchMode mode) {
+        if(mode == null) {
+            throw new IllegalArgumentException("mode should not be null");
+        }
+
+        if(mode != this.mode) {
+            discardEngine();
+            this.mode = mode;
+        }
+    }
+
+    /**
+     * Sets whether to search on the opponent's time. Pondering stops when
+     * the next move is asked for.
+     *
+     * @param pondering <code>true</code> to ponder after each searched move.
+     */
+    public void setPondering(boolean pondering) {
+        if(!pondering && ponderer != null) {
+            ponderer.shutdown();
+            ponderer = null;
+        }
+        this.pondering = pondering;
+    }
+
+    /**
+     * Stops any search on the opponent's time, e.g. when the game is over.
+     * Pondering starts again after the next searched move.
+     */
+    public void stopPondering() {
+        if(ponderer != null) {
+            ponderer.stop();
+        }
+    }
+
+    /**
+     * Stops pondering and releases the search threads and transposition
+     * table, e.g. when the game is over. The search is rebuilt if the player
+     * is asked for another move.
+     */
+    public void shutdown() {
+        discardEngine();
+    }
+
+    /**
+     * @return <code>true</code> if the player searches on the opponent's
+     * time.
+     */
+    public boolean isPondering() {
+        return pondering;
+    }
+
+    /**
+     * @return the number of positions searched while the opponent chose the
+     * move before the last one asked for.
+     */
+    public long getLastPonderNodes() {
+        return lastPonderNodes;
+    }
+
+    /**
+     * @return the kind of search used for each move.
+     */
+    public SearchMode getSearchMode() {
+        return mode;
+    }
+
+    /**
+     * @return the number of threads each move is searched with.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return the number of positions searched for the last move.
+     */
+    public long getLastNodes() {
+        return lastNodes;
     }
 
+    /**
+     * @return the deepest iteration completed for the last move.
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * @return the search speed for the last move, in positions per second.
+     */
+    public long getLastNodesPerSecond() {
+        return lastNanos == 0 ? 0 : lastNodes * 1000000000L / lastNanos;
+    }
+
+    /**
+     * The book move for a position, if there is a book and it has a legal
+     * move for the position.
+     *
+     * @return the house to move from, or 0 to search instead.
+     */
+    private int bookMove(Board b, int playerNum) {
+        OpeningBook book = OpeningBook.getDefault();
+
+        if(book == null) {
+            return 0;
+        }
+
+        int move = book.lookup(b.getPositionKey(playerNum));
+
+        if(move == 0 || (b.getLegalMoves(playerNum) & (1 << (move - 1))) ==
+                0) {
+            return 0;
+        }
+        return move;
+    }
+
+    /**
+     * Starts pondering on the position after a move, if the search keeps a
+     * transposition table to leave results in.
+     */
+    private void ponder(Board b, int playerNum, int move) {
+        TranspositionTable table = engine instanceof SearchEngine ?
+                ((SearchEngine) engine).getTable() :
+                engine instanceof LazySmpSearch ?
+                ((LazySmpSearch) engine).getTable() : null;
+
+        if(table == null) {
+            return;
+        }
+        if(ponderer == null) {
+            ponderer = new Ponderer(table);
+        }
+
+        BoardImpl next = new BoardImpl(b);
+        next.makeLegalMove(move, playerNum);
+        ponderer.start(next, 3 - playerNum);
+    }
+
+    private void discardEngine() {
+        if(ponderer != null) {
+            ponderer.shutdown();
+            ponderer = null;
+        }
+        if(engine != null) {
+            engine.shutdown();
+            engine = null;
+        }
+    }
 }
@@ -0,0 +1,325 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Builds an {@link EndgameDatabase} by retrograde analysis.
+ *
+ * Positions are solved one seed count at a time, from an empty board up. A
+ * move that captures leads to a position with fewer seeds, which is already
+ * solved; a move that does not capture leads to a position with the same
+ * number of seeds, so each level is solved by value iteration.
+ *
+ * Moves without captures can go round in cycles, so the level keeps a lower
+ * and an upper bound on every value rather than a single value. The bounds
+ * start at losing and winning every seed, and each round raises every lower
+ * bound to the best the player to move can force against the opponent's
+ * upper bounds, and lowers every upper bound likewise. The bounds only move
+ * towards each other, so they settle. Where they have not met, the result
+ * depends on play that repeats forever; the game then ends by repetition with
+ * each player taking the seeds on their own side, and that value is stored,
+ * kept within the bounds.
+ *
+ * The rounds of a level are split across a ForkJoinPool by index range.
+ *
+ * Usage: <code>java EndgameBuilder file [maxSeeds] [threads]</code>
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class EndgameBuilder {
+
+    /**
+     * The number of seeds covered when none is given.
+     */
+    public static final int DEFAULT_SEEDS = 12;
+
+    private static final int CHUNK = 1 << 12;
+
+    private static final Logger LOGGER =
+            Logger.getLogger(EndgameBuilder.class.getName());
+
+    private final int maxSeeds;
+    private final byte[][] levels;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor for EndgameBuilder class.
+     *
+     * @param maxSeeds the most seeds on the board to solve.
+     * @param threads the number of threads to solve with.
+     */
+    public EndgameBuilder(int maxSeeds, int threads) {
+        if(maxSeeds < 0 || maxSeeds > EndgameDatabase.MAX_SEEDS) {
+            throw new IllegalArgumentException("maxSeeds should be from 0 " +
+                    "to " + EndgameDatabase.MAX_SEEDS);
+        }
+
+        this.maxSeeds = maxSeeds;
+        this.levels = new byte[maxSeeds + 1][];
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Builds a database file.
+     *
+     * @param args the file to write, the most seeds to solve (default 12) and
+     * the number of threads (default: the number of processors).
+     * @throws IOException if the file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1) {
+            System.err.println("Usage: java EndgameBuilder file [maxSeeds] " +
+                    "[threads]");
+            return;
+        }
+
+        int seeds = args.length > 1 ? Integer.parseInt(args[1]) :
+                DEFAULT_SEEDS;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) :
+                Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        EndgameBuilder builder = new EndgameBuilder(seeds, threads);
+        builder.build();
+        builder.write(new File(args[0]));
+
+        System.out.println(String.format("Solved up to %d seeds in %d ms",
+                seeds, (System.nanoTime() - start) / 1000000));
+    }
+
+    /**
+     * Solves every level.
+     */
+    public void build() {
+        for(int n = 0; n <= maxSeeds; n++) {
+            long start = System.nanoTime();
+            int rounds = buildLevel(n);
+
+            if(LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, String.format("%2d seeds: %,d " +
+                        "positions, %d rounds, %d ms", n, levels[n].length,
+                        rounds, (System.nanoTime() - start) / 1000000));
+            }
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Writes the solved levels in the format {@link EndgameDatabase} maps.
+     *
+     * @param file the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+        try(DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(EndgameDatabase.MAGIC);
+            out.writeInt(maxSeeds);
+
+            for(byte[] level : levels) {
+                out.write(level);
+            }
+        }
+    }
+
+    /**
+     * @param seeds a number of seeds solved by {@link #build()}.
+     * @return the values of the positions with that many seeds, by rank.
+     */
+    public byte[] getLevel(int seeds) {
+        return levels[seeds];
+    }
+
+    private int buildLevel(int n) {
+        int size = (int) EndgameDatabase.size(n);
+        byte[] lower = new byte[size];
+        byte[] upper = new byte[size];
+
+        Arrays.fill(lower, (byte) -n);
+        Arrays.fill(upper, (byte) n);
+
+        int rounds = 0;
+        boolean changed = true;
+
+        // Bounds are updated in place, so a round may already see bounds
+        // tightened earlier in the same round. They still only tighten.
+        while(changed) {
+            changed = pool.invoke(new Round(n, lower, upper, null, 0, size));
+            rounds++;
+        }
+
+        levels[n] = new byte[size];
+        pool.invoke(new Round(n, lower, upper, levels[n], 0, size));
+
+        return rounds;
+    }
+
+    /**
+     * One round of tightening the bounds over a range of a level or, given
+     * an array of values, the final pass that fills it in.
+     */
+    private final class Round extends RecursiveTask<Boolean> {
+
+        private final int seeds;
+        private final byte[] lower;
+        private final byte[] upper;
+        private final byte[] values;
+        private final int from;
+        private final int to;
+
+        Round(int seeds, byte[] lower, byte[] upper, byte[] values, int from,
+                int to) {
+            this.seeds = seeds;
+            this.lower = lower;
+            this.upper = upper;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if(to - from > CHUNK) {
+                int middle = (from + to) >>> 1;
+                Round left = new Round(seeds, lower, upper, values, from,
+                        middle);
+                left.fork();
+
+                boolean right = new Round(seeds, lower, upper, values, middle,
+                        to).compute();
+                return left.join() | right;
+            }
+
+            int[] houses = new int[MoveKernel.HOUSES];
+            boolean changed = false;
+            EndgameDatabase.unrank(from, seeds, houses);
+
+            for(int i = from; i < to; i++) {
+                if(values != null) {
+                    int value = sideDifference(houses);
+                    values[i] = (byte) Math.max(lower[i],
+                            Math.min(upper[i], value));
+                }
+                else if(lower[i] != upper[i] && tighten(houses, i)) {
+                    changed = true;
+                }
+                next(houses);
+            }
+            return changed;
+        }
+
+        /**
+         * Recomputes both bounds of a position, with player 1's side first,
+         * from the opponent's bounds after each move.
+         *
+         * @return <code>true</code> if either bound changed.
+         */
+        private boolean tighten(int[] houses, int index) {
+            int legal = MoveKernel.legalMoves(houses, 1);
+            int low = Integer.MIN_VALUE;
+            int high = Integer.MIN_VALUE;
+
+            // The opponent takes the seeds on their side.
+            if(legal == 0) {
+                low = -sideSeeds(houses, 6);
+                high = low;
+            }
+
+            for(int house = 1; house < 7; house++) {
+                if((legal & (1 << (house - 1))) == 0) {
+                    continue;
+                }
+
+                int undo = MoveKernel.move(houses, house - 1, 1);
+                int captured = MoveKernel.undoScore(undo);
+                int left = seeds - captured;
+
+                // The opponent moves next, so read from their side.
+                int rank = (int) EndgameDatabase.rank(houses, 6, left);
+
+                if(captured == 0) {
+                    low = Math.max(low, -upper[rank]);
+                    high = Math.max(high, -lower[rank]);
+                }
+                else {
+                    int value = captured - levels[left][rank];
+                    low = Math.max(low, value);
+                    high = Math.max(high, value);
+                }
+
+                MoveKernel.unmove(houses, undo);
+            }
+
+            if(low == lower[index] && high == upper[index]) {
+                return false;
+            }
+
+            lower[index] = (byte) low;
+            upper[index] = (byte) high;
+            return true;
+        }
+    }
+
+    private static int sideDifference(int[] houses) {
+        return sideSeeds(houses, 0) - sideSeeds(houses, 6);
+    }
+
+    private static int sideSeeds(int[] houses, int base) {
+        int seeds = 0;
+
+        for(int i = base; i < base + 6; i++) {
+            seeds += houses[i];
+        }
+        return seeds;
+    }
+
+    /**
+     * Steps to the arrangement with the next rank: the last of the first
+     * eleven houses that has seeds after it gains one, and the rest of those
+     * seeds go to the last house.
+     */
+    private static void next(int[] houses) {
+        int last = MoveKernel.HOUSES - 1;
+        int after = houses[last];
+        int i = last - 1;
+
+        while(i >= 0 && after == 0) {
+            after = houses[i];
+            houses[i] = 0;
+            i--;
+        }
+
+        if(i < 0) {
+            return;
+        }
+
+        houses[i]++;
+        houses[last] = after - 1;
+    }
+}
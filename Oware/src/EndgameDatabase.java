@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A solved database of endgames with few seeds left on the board, read from
+ * a memory-mapped file.
+ *
+ * Every arrangement of n seeds in the twelve houses has a dense index, its
+ * rank among all such arrangements, and the file holds one byte per
+ * arrangement for every n up to the database's limit. The houses are read
+ * from the side of the player to move, so one table serves both players. The
+ * byte is the number of seeds the player to move will capture from here on,
+ * less the number the opponent will, with best play by both. The file is
+ * written by {@link EndgameBuilder}.
+ *
+ * The file is mapped rather than read, so the database costs no heap and is
+ * shared between engines and threads.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class EndgameDatabase {
+
+    /**
+     * The system property giving the path of the database file.
+     */
+    public static final String FILE_PROPERTY = "oware.endgame";
+
+    /**
+     * The most seeds a database can cover.
+     */
+    public static final int MAX_SEEDS = 20;
+
+    /**
+     * The value {@link #probe(int[], int) probe} returns for a position with
+     * more seeds than the database covers.
+     */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    static final int MAGIC = 0x4F574442;
+    static final int HEADER_BYTES = 8;
+
+    private static final Logger LOGGER =
+            Logger.getLogger(EndgameDatabase.class.getName());
+
+    // WAYS[h][s] is the number of ways to put s seeds in h houses.
+    private static final long[][] WAYS = new long[MoveKernel.HOUSES + 1][49];
+
+    static {
+        WAYS[0][0] = 1;
+
+        for(int h = 1; h <= MoveKernel.HOUSES; h++) {
+            long sum = 0;
+
+            // The prefix sums of the row above.
+            for(int s = 0; s < 49; s++) {
+                sum += WAYS[h - 1][s];
+                WAYS[h][s] = sum;
+            }
+        }
+    }
+
+    private static EndgameDatabase defaultDatabase;
+    private static boolean defaultLoaded;
+
+    private final MappedByteBuffer buffer;
+    private final int maxSeeds;
+    private final long[] offsets;
+
+    /**
+     * Constructor for EndgameDatabase class, mapping a database file.
+     *
+     * @param file the file written by {@link EndgameBuilder}.
+     * @throws IOException if the file cannot be read or is not a database.
+     */
+    public EndgameDatabase(File file) throws IOException {
+        try(RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            FileChannel channel = in.getChannel();
+
+            if(channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map.");
+            }
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+
+        if(buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not an endgame database.");
+        }
+
+        maxSeeds = buffer.getInt(4);
+
+        if(maxSeeds < 0 || maxSeeds > MAX_SEEDS ||
+                buffer.capacity() != offset(maxSeeds + 1)) {
+            throw new IOException(file + " has the wrong length for an " +
+                    "endgame database.");
+        }
+
+        offsets = new long[maxSeeds + 1];
+
+        for(int n = 0; n <= maxSeeds; n++) {
+            offsets[n] = offset(n);
+        }
+    }
+
+    /**
+     * The database named by the {@link #FILE_PROPERTY} system property,
+     * mapped on first use.
+     *
+     * @return the database, or <code>null</code> if the property is not set
+     * or the file cannot be mapped.
+     */
+    public static synchronized EndgameDatabase getDefault() {
+        if(!defaultLoaded) {
+            defaultLoaded = true;
+            String path = System.getProperty(FILE_PROPERTY);
+
+            if(path != null) {
+                try {
+                    defaultDatabase = new EndgameDatabase(new File(path));
+                }
+                catch(IOException ex) {
+                    LOGGER.log(Level.WARNING, "Endgame database not loaded",
+                            ex);
+                }
+            }
+        }
+        return defaultDatabase;
+    }
+
+    /**
+     * @return the most seeds on the board the database covers.
+     */
+    public int getMaxSeeds() {
+        return maxSeeds;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param houses the 12 houses of the board.
+     * @param playerNum the player to move (1 or 2).
+     * @return the seeds the player to move will capture from here on less
+     * those the opponent will, or {@link #UNKNOWN} if there are more seeds on
+     * the board than the database covers.
+     */
+    public int probe(int[] houses, int playerNum) {
+        int seeds = 0;
+
+        for(int i = 0; i < MoveKernel.HOUSES; i++) {
+            seeds += houses[i];
+        }
+
+        if(seeds > maxSeeds) {
+            return UNKNOWN;
+        }
+
+        return buffer.get((int) (offsets[seeds] +
+                rank(houses, MoveKernel.base(playerNum), seeds)));
+    }
+
+    /**
+     * The number of arrangements of a number of seeds in the twelve houses.
+     *
+     * @param seeds the number of seeds.
+     * @return the number of positions with that many seeds, for each player
+     * to move.
+     */
+    public static long size(int seeds) {
+        return WAYS[MoveKernel.HOUSES][seeds];
+    }
+
+    /**
+     * The dense index of an arrangement among those with the same number of
+     * seeds, reading the houses from a given one onwards.
+     *
+     * Arrangements are ordered by the seeds in the first house read, then the
+     * second, and so on. The number of arrangements that come before one
+     * because a house holds fewer seeds is a sum along a row of the ways
+     * table, and since each row is the running sum of the row before, that
+     * is the difference of two entries of the next row.
+     *
+     * @param houses the 12 houses of the board.
+     * @param first the index of the house to read first: the first house of
+     * the player to move.
+     * @param seeds the number of seeds in the houses.
+     * @return the index, from 0 to {@link #size(int) size(seeds)} - 1.
+     */
+    public static long rank(int[] houses, int first, int seeds) {
+        long rank = 0;
+        int remaining = seeds;
+
+        for(int i = 0; i < MoveKernel.HOUSES - 1; i++) {
+            int count = houses[(first + i) % MoveKernel.HOUSES];
+            // The ways table row for this house and those after it.
+            int row = MoveKernel.HOUSES - i;
+
+            rank += WAYS[row][remaining] - WAYS[row][remaining - count];
+            remaining -= count;
+        }
+        return rank;
+    }
+
+    /**
+     * The arrangement with a given index, the inverse of
+     * {@link #rank(int[], int, int) rank} with the first house at index 0.
+     *
+     * @param rank the index.
+     * @param seeds the number of seeds.
+     * @param houses the array to fill with the 12 houses.
+     */
+    public static void unrank(long rank, int seeds, int[] houses) {
+        int remaining = seeds;
+
+        for(int i = 0; i < MoveKernel.HOUSES - 1; i++) {
+            // The ways table row for this house and those after it.
+            int row = MoveKernel.HOUSES - i;
+            int count = 0;
+
+            // Each extra seed here skips the arrangements with fewer.
+            while(count < remaining && WAYS[row][remaining] -
+                    WAYS[row][remaining - count - 1] <= rank) {
+                count++;
+            }
+
+            rank -= WAYS[row][remaining] - WAYS[row][remaining - count];
+            houses[i] = count;
+            remaining -= count;
+        }
+        houses[MoveKernel.HOUSES - 1] = remaining;
+    }
+
+    /**
+     * The position of a level in the file.
+     */
+    static long offset(int seeds) {
+        long offset = HEADER_BYTES;
+
+        for(int n = 0; n < seeds; n++) {
+            offset += size(n);
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how search speed and depth scale with the number of threads.
+ *
+ * A fixed set of positions is searched with 1, 2, 4, ... threads up to the
+ * number given, for a fixed time each, and the total speed and mean depth
+ * reached are printed for every thread count. The positions are first
+ * searched once untimed, so that the timed runs are not slowed by the JIT
+ * compiler.
+ *
+ * Usage: <code>java EngineBenchmark [maxThreads] [millisPerPosition]
+ * [positions]</code>
+ *
+ * With <code>ybwc</code> as the first argument the {@link YbwcSearch} is
+ * measured instead, searching the positions to a fixed depth. The time and
+ * nodes taken are compared with the serial {@link SearchEngine} and with the
+ * same search on one thread, whose extra nodes are the search overhead.
+ *
+ * Usage: <code>java EngineBenchmark ybwc [maxThreads] [depth]
+ * [positions]</code>
+ *
+ * With <code>ordering</code> as the first argument the serial
+ * {@link SearchEngine} searches the positions to a fixed depth with and
+ * without its killer and history move ordering, and the nodes, time and
+ * share of cutoffs made by the first move searched are compared.
+ *
+ * Usage: <code>java EngineBenchmark ordering [depth] [positions]</code>
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class EngineBenchmark {
+
+    private static final long SEED = 20150101L;
+
+    // The time to search each position for while warming up.
+    private static final long WARM_UP_MILLIS = 500;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the maximum number of threads (default: the number of
+     * processors), the time per position in milliseconds (default 1000) and
+     * the number of positions (default 8).
+     */
+    public static void main(String[] args) {
+        if(args.length > 0 && args[0].equals("ybwc")) {
+            benchmarkYbwc(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if(args.length > 0 && args[0].equals("ordering")) {
+            benchmarkOrdering(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) :
+                Runtime.getRuntime().availableProcessors();
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        List<Board> positions = new ArrayList<>();
+        List<Integer> players = new ArrayList<>();
+        createPositions(count, positions, players);
+
+        LazySmpSearch warm = new LazySmpSearch(1);
+        warmUp(warm, positions, players);
+        warm.shutdown();
+
+        System.out.println("threads  nodes/s      mean depth  speedup");
+
+        double baseline = 0;
+
+        for(int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            LazySmpSearch search = new LazySmpSearch(threads);
+            long nodes = 0;
+            long nanos = 0;
+            int depth = 0;
+
+            for(int i = 0; i < positions.size(); i++) {
+                long start = System.nanoTime();
+                search.search(positions.get(i), players.get(i),
+                        start + millis * 1000000L);
+                nanos += System.nanoTime() - start;
+                nodes += search.getNodes();
+                depth += search.getCompletedDepth();
+            }
+            search.shutdown();
+
+            double speed = nodes * 1e9 / nanos;
+
+            if(threads == 1) {
+                baseline = speed;
+            }
+
+            System.out.println(String.format("%7d  %11.0f  %10.2f  %7.2f",
+                    threads, speed, (double) depth / positions.size(),
+                    speed / baseline));
+
+            if(threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+
+    private static void benchmarkYbwc(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) :
+                Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 12;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        List<Board> positions = new ArrayList<>();
+        List<Integer> players = new ArrayList<>();
+        createPositions(count, positions, players);
+
+        SearchEngine warmEngine = new SearchEngine();
+        warmUp(warmEngine, positions, players);
+        warmEngine.shutdown();
+
+        YbwcSearch warmYbwc = new YbwcSearch(1);
+        warmUp(warmYbwc, positions, players);
+        warmYbwc.shutdown();
+
+        // The serial engine, with its transposition table, for reference.
+        long nanos = 0;
+        long nodes = 0;
+
+        for(int i = 0; i < positions.size(); i++) {
+            SearchEngine engine = new SearchEngine();
+            long start = System.nanoTime();
+            engine.search(positions.get(i), players.get(i), Long.MAX_VALUE,
+                    depth);
+            nanos += System.nanoTime() - start;
+            nodes += engine.getNodes();
+        }
+
+        System.out.println(String.format("serial engine: %d nodes in %d ms",
+                nodes, nanos / 1000000));
+        System.out.println("threads  ms        nodes        speedup  " +
+                "overhead");
+
+        long baseNanos = 0;
+        long baseNodes = 0;
+
+        for(int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            YbwcSearch search = new YbwcSearch(threads);
+            nanos = 0;
+            nodes = 0;
+
+            for(int i = 0; i < positions.size(); i++) {
+                long start = System.nanoTime();
+                search.search(positions.get(i), players.get(i),
+                        Long.MAX_VALUE, depth);
+                nanos += System.nanoTime() - start;
+                nodes += search.getNodes();
+            }
+            search.shutdown();
+
+            if(threads == 1) {
+                baseNanos = nanos;
+                baseNodes = nodes;
+            }
+
+            System.out.println(String.format("%7d  %8d  %11d  %7.2f  %8.2f",
+                    threads, nanos / 1000000, nodes,
+                    (double) baseNanos / nanos, (double) nodes / baseNodes));
+
+            if(threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+
+    private static void benchmarkOrdering(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+        List<Board> positions = new ArrayList<>();
+        List<Integer> players = new ArrayList<>();
+        createPositions(count, positions, players);
+
+        for(int run = 0; run < 2; run++) {
+            SearchEngine warm = new SearchEngine();
+            warm.setMoveOrdering(run == 1);
+            warmUp(warm, positions, players);
+            warm.shutdown();
+        }
+
+        System.out.println("ordering  ms        nodes        " +
+                "first-move cutoffs");
+
+        for(int run = 0; run < 2; run++) {
+            long nanos = 0;
+            long nodes = 0;
+            long cutoffs = 0;
+            long firstMoveCutoffs = 0;
+
+            for(int i = 0; i < positions.size(); i++) {
+                SearchEngine engine = new SearchEngine();
+                engine.setMoveOrdering(run == 1);
+
+                long start = System.nanoTime();
+                engine.search(positions.get(i), players.get(i),
+                        Long.MAX_VALUE, depth);
+                nanos += System.nanoTime() - start;
+                nodes += engine.getNodes();
+                cutoffs += engine.getCutoffs();
+                firstMoveCutoffs += engine.getFirstMoveCutoffs();
+            }
+
+            System.out.println(String.format("%-8s  %8d  %11d  %17.1f%%",
+                    run == 1 ? "on" : "off", nanos / 1000000, nodes,
+                    100.0 * firstMoveCutoffs / Math.max(cutoffs, 1)));
+        }
+    }
+
+    /**
+     * Searches every position once, discarding the results, so that the
+     * search is compiled before anything is timed.
+     */
+    private static void warmUp(MoveSearch search, List<Board> positions,
+            List<Integer> players) {
+        for(int i = 0; i < positions.size(); i++) {
+            search.search(positions.get(i), players.get(i),
+                    System.nanoTime() + WARM_UP_MILLIS * 1000000L);
+        }
+    }
+
+    /**
+     * Plays random legal moves from the start to make a repeatable set of
+     * positions with at least two legal moves.
+     */
+    private static void createPositions(int count, List<Board> positions,
+            List<Integer> players) {
+        Random random = new Random(SEED);
+
+        while(positions.size() < count) {
+            BoardImpl board = new BoardImpl();
+            int player = 1;
+            int plies = random.nextInt(24);
+
+            for(int i = 0; i < plies && board.getLegalMoves(player) != 0; i++) {
+                int legal = board.getLegalMoves(player);
+                int house;
+
+                do {
+                    house = 1 + random.nextInt(6);
+                }
+                while((legal & (1 << (house - 1))) == 0);
+
+                board.makeLegalMove(house, player);
+                player = 3 - player;
+            }
+
+            if(Integer.bitCount(board.getLegalMoves(player)) > 1 &&
+                    board.getScore(1) <= 24 && board.getScore(2) <= 24) {
+                positions.add(board);
+                players.add(player);
+            }
+        }
+    }
+}
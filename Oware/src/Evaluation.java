@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A linear evaluation of a position for the search.
+ *
+ * The evaluation is the dot product of a few integer weights with features of
+ * the position, each the difference between the player to move and the
+ * opponent: the scores, the seeds on each side, the houses holding 1 or 2
+ * seeds that a last seed can turn into a capture, and the kroos that can sow
+ * around the board. {@link BoardImpl} keeps every feature up to date as moves
+ * are made and unmade, so evaluating a position reads a few ints and
+ * allocates nothing.
+ *
+ * Weights can be saved to and read from a properties file with a key for
+ * each feature. If the {@link #WEIGHTS_PROPERTY} system property names such
+ * a file, as written by {@link EvaluationTuner}, the default evaluation uses
+ * its weights.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class Evaluation {
+
+    /**
+     * The index of the score difference among the features and weights.
+     */
+    public static final int SCORE = 0;
+
+    /**
+     * The index of the difference in seeds on each side.
+     */
+    public static final int SEEDS = 1;
+
+    /**
+     * The index of the difference in houses holding 1 or 2 seeds.
+     */
+    public static final int VULNERABLE = 2;
+
+    /**
+     * The index of the difference in kroos.
+     */
+    public static final int KROO = 3;
+
+    /**
+     * The number of features.
+     */
+    public static final int FEATURES = 4;
+
+    /**
+     * The system property giving the path of a weights file for the default
+     * evaluation.
+     */
+    public static final String WEIGHTS_PROPERTY = "oware.eval.weights";
+
+    private static final String[] NAMES = {
+        "score", "seeds", "vulnerable", "kroo"
+    };
+
+    private static final Logger LOGGER =
+            Logger.getLogger(Evaluation.class.getName());
+
+    // Chosen by fixed-depth self-play against the score difference alone.
+    private static final int[] DEFAULT_WEIGHTS = {
+        SearchEngine.SEED_VALUE, 10, 50, 10
+    };
+
+    // The largest value each feature can take: 48 seeds in all, 6 houses a
+    // side.
+    private static final int[] FEATURE_LIMITS = {48, 48, 6, 6};
+
+    private static Evaluation defaultEvaluation;
+
+    private final int[] weights;
+
+    /**
+     * Default constructor for Evaluation class, with the default weights.
+     */
+    public Evaluation() {
+        this(DEFAULT_WEIGHTS);
+    }
+
+    /**
+     * Constructor for Evaluation class.
+     *
+     * @param weights a weight for each feature, in hundredths of a seed.
+     * @throws IllegalArgumentException if some position could evaluate to
+     * a score the search takes for a won or lost game.
+     */
+    public Evaluation(int[] weights) {
+        if(weights.length != FEATURES) {
+            throw new IllegalArgumentException("weights should have " +
+                    FEATURES + " elements");
+        }
+
+        long largest = 0;
+
+        for(int i = 0; i < FEATURES; i++) {
+            largest += Math.abs((long) weights[i]) * FEATURE_LIMITS[i];
+        }
+
+        if(largest >= SearchEngine.WIN - SearchEngine.MAX_PLY) {
+            throw new IllegalArgumentException("weights are too large: " +
+                    "evaluations must stay below " +
+                    (SearchEngine.WIN - SearchEngine.MAX_PLY));
+        }
+
+        this.weights = Arrays.copyOf(weights, FEATURES);
+    }
+
+    /**
+     * The evaluation searches use unless given another: the weights in the
+     * file named by the {@link #WEIGHTS_PROPERTY} system property, read on
+     * first use, or the built-in weights.
+     *
+     * @return the default evaluation.
+     */
+    public static synchronized Evaluation getDefault() {
+        if(defaultEvaluation == null) {
+            String path = System.getProperty(WEIGHTS_PROPERTY);
+
+            if(path != null) {
+                try {
+                    defaultEvaluation = read(new File(path));
+                }
+                catch(IOException | IllegalArgumentException ex) {
+                    LOGGER.log(Level.WARNING, "Evaluation weights not loaded",
+                            ex);
+                }
+            }
+            if(defaultEvaluation == null) {
+                defaultEvaluation = new Evaluation();
+            }
+        }
+        return defaultEvaluation;
+    }
+
+    /**
+     * Reads an evaluation from a weights file. Features the file leaves out
+     * keep their built-in weights.
+     *
+     * @param file the file written by {@link #write(File)}.
+     * @return the evaluation.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if a weight is not an integer or the
+     * weights are too large.
+     */
+    public static Evaluation read(File file) throws IOException {
+        Properties properties = new Properties();
+
+        try(InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        }
+
+        int[] weights = Arrays.copyOf(DEFAULT_WEIGHTS, FEATURES);
+
+        for(int i = 0; i < FEATURES; i++) {
+            String value = properties.getProperty(NAMES[i]);
+
+            if(value != null) {
+                weights[i] = Integer.parseInt(value.trim());
+            }
+        }
+        return new Evaluation(weights);
+    }
+
+    /**
+     * Writes the weights to a file that {@link #read(File)} reads.
+     *
+     * @param file the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+        Properties properties = new Properties();
+
+        for(int i = 0; i < FEATURES; i++) {
+            properties.setProperty(NAMES[i], Integer.toString(weights[i]));
+        }
+
+        try(OutputStream out = new FileOutputStream(file)) {
+            properties.store(out, "Oware evaluation weights");
+        }
+    }
+
+    /**
+     * Evaluates a position.
+     *
+     * @param board the position.
+     * @param playerNum the player to move (1 or 2).
+     * @return the score from the point of view of the player to move, in
+     * hundredths of a seed.
+     */
+    public int evaluate(BoardImpl board, int playerNum) {
+        int opponent = 3 - playerNum;
+
+        return weights[SCORE] * (board.getScore(playerNum) -
+                board.getScore(opponent)) +
+                weights[SEEDS] * (board.getSideSeeds(playerNum) -
+                board.getSideSeeds(opponent)) +
+                weights[VULNERABLE] * (board.getVulnerableHouses(playerNum) -
+                board.getVulnerableHouses(opponent)) +
+                weights[KROO] * (board.getKrooHouses(playerNum) -
+                board.getKrooHouses(opponent));
+    }
+
+    /**
+     * Reads the features of a position.
+     *
+     * @param board the position.
+     * @param playerNum the player to move (1 or 2).
+     * @param features an array of at least {@link #FEATURES} elements to fill
+     * with the features from the point of view of the player to move.
+     */
+    public static void features(BoardImpl board, int playerNum,
+            int[] features) {
+        int opponent = 3 - playerNum;
+
+        features[SCORE] = board.getScore(playerNum) - board.getScore(opponent);
+        features[SEEDS] = board.getSideSeeds(playerNum) -
+                board.getSideSeeds(opponent);
+        features[VULNERABLE] = board.getVulnerableHouses(playerNum) -
+                board.getVulnerableHouses(opponent);
+        features[KROO] = board.getKrooHouses(playerNum) -
+                board.getKrooHouses(opponent);
+    }
+
+    /**
+     * Reads the features of a position given as bare arrays, as
+     * {@link #features(BoardImpl, int, int[])} does for a board.
+     *
+     * @param houses the 12 houses of the board.
+     * @param score1 player 1's score.
+     * @param score2 player 2's score.
+     * @param playerNum the player to move (1 or 2).
+     * @param features an array of at least {@link #FEATURES} elements to fill.
+     */
+    public static void features(int[] houses, int score1, int score2,
+            int playerNum, int[] features) {
+        int packed = MoveKernel.features(houses);
+        int opponent = 3 - playerNum;
+        int seeds = 0;
+
+        for(int i = 0; i < 6; i++) {
+            seeds += houses[i] - houses[i + 6];
+        }
+
+        features[SCORE] = playerNum == 1 ? score1 - score2 : score2 - score1;
+        features[SEEDS] = playerNum == 1 ? seeds : -seeds;
+        features[VULNERABLE] = MoveKernel.featureCount(packed,
+                MoveKernel.VULNERABLE_SHIFT, playerNum) -
+                MoveKernel.featureCount(packed, MoveKernel.VULNERABLE_SHIFT,
+                opponent);
+        features[KROO] = MoveKernel.featureCount(packed,
+                MoveKernel.KROO_SHIFT, playerNum) -
+                MoveKernel.featureCount(packed, MoveKernel.KROO_SHIFT,
+                opponent);
+    }
+
+    /**
+     * @return a copy of the weights.
+     */
+    public int[] getWeights() {
+        return Arrays.copyOf(weights, FEATURES);
+    }
+}
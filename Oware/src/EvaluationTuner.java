@@ -0,0 +1,501 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fits the weights of the {@link Evaluation} to the results of recorded games,
+ * in the manner of the Texel tuner.
+ *
+ * Each recorded position is turned into its features once, as it is read, and
+ * kept in a few bytes. The evaluation of a position, scaled by a constant
+ * K and passed through a sigmoid, predicts the result of its game for the
+ * player to move. K is fitted first, then the weights are found by gradient
+ * descent on the mean squared error of the predictions. The score weight is
+ * held at {@link SearchEngine#SEED_VALUE} so that scores stay in hundredths
+ * of a seed. Every pass over the positions is split across a
+ * {@link ForkJoinPool}.
+ *
+ * The positions file has a line per position: the 12 houses, player 1's and
+ * player 2's scores, the player to move and the result of the game (1 or 2
+ * for the winner, 0 for a draw), separated by spaces. The tuner can record
+ * one itself from fixed-depth self-play games.
+ *
+ * Usage: <code>java EvaluationTuner record file [games] [depth]</code><br>
+ * <code>java EvaluationTuner tune positions weights [iterations]
+ * [threads]</code>
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class EvaluationTuner {
+
+    /**
+     * The number of gradient descent steps taken by default.
+     */
+    public static final int DEFAULT_ITERATIONS = 500;
+
+    // Positions per task in a pass over the data.
+    private static final int BATCH = 16384;
+
+    // The moves at the start of each recorded game chosen at random.
+    private static final int RANDOM_PLIES = 6;
+
+    private static final double LEARNING_RATE = 2.0;
+
+    private static final long SEED = 20150101L;
+
+    private final ForkJoinPool pool;
+
+    private byte[] features;
+    private byte[] results;
+    private int size;
+    private double scale;
+
+    /**
+     * Constructor for EvaluationTuner class.
+     *
+     * @param threads the number of threads to compute with.
+     */
+    public EvaluationTuner(int threads) {
+        if(threads < 1) {
+            throw new IllegalArgumentException("threads should be at least 1");
+        }
+
+        pool = new ForkJoinPool(threads);
+        features = new byte[1024 * Evaluation.FEATURES];
+        results = new byte[1024];
+        scale = 1;
+    }
+
+    /**
+     * Records or tunes, as described in the class documentation.
+     *
+     * @param args the mode and its arguments.
+     * @throws IOException if a file cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length >= 2 && args[0].equals("record")) {
+            int games = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+            int depth = args.length > 3 ? Integer.parseInt(args[3]) : 6;
+
+            int positions = record(new File(args[1]), games, depth);
+            System.out.println(positions + " positions recorded");
+        }
+        else if(args.length >= 3 && args[0].equals("tune")) {
+            int iterations = args.length > 3 ? Integer.parseInt(args[3]) :
+                    DEFAULT_ITERATIONS;
+            int threads = args.length > 4 ? Integer.parseInt(args[4]) :
+                    Runtime.getRuntime().availableProcessors();
+
+            long start = System.nanoTime();
+            EvaluationTuner tuner = new EvaluationTuner(threads);
+            tuner.read(new File(args[1]));
+
+            System.out.println(String.format("%d positions read in %d ms",
+                    tuner.size(), (System.nanoTime() - start) / 1000000));
+
+            int[] weights = Evaluation.getDefault().getWeights();
+            tuner.fitScale(weights);
+            Evaluation tuned = new Evaluation(tuner.tune(weights, iterations));
+            tuned.write(new File(args[2]));
+
+            System.out.println(String.format("K %.4f, error %.6f, " +
+                    "weights %s in %d s", tuner.getScale(),
+                    tuner.error(tuned.getWeights()),
+                    Arrays.toString(tuned.getWeights()),
+                    (System.nanoTime() - start) / 1000000000L));
+            tuner.shutdown();
+        }
+        else {
+            System.err.println("Usage: java EvaluationTuner record file " +
+                    "[games] [depth]");
+            System.err.println("       java EvaluationTuner tune positions " +
+                    "weights [iterations] [threads]");
+        }
+    }
+
+    /**
+     * Plays games between two fixed-depth searches, starting each from a few
+     * random moves, and writes the quiet positions of each game with its
+     * result. Positions where the player to move can capture are left out,
+     * as their evaluation is about to change.
+     *
+     * @param file the positions file to write.
+     * @param games the number of games to play.
+     * @param depth the depth each move is searched to.
+     * @return the number of positions written.
+     * @throws IOException if the file cannot be written.
+     */
+    public static int record(File file, int games, int depth)
+            throws IOException {
+        Random random = new Random(SEED);
+        int[] houses = new int[MoveKernel.HOUSES];
+        int positions = 0;
+
+        try(PrintWriter out = new PrintWriter(new BufferedWriter(
+                new FileWriter(file)))) {
+            for(int game = 0; game < games; game++) {
+                GameImpl record = new GameImpl(
+                        new FixedDepthPlayer(depth, random),
+                        new FixedDepthPlayer(depth, random));
+
+                while(record.getResult() < 0) {
+                    try {
+                        record.nextMove();
+                    }
+                    catch(InvalidHouseException | InvalidMoveException |
+                            QuitGameException ex) {
+                        throw new IllegalStateException("A search made an " +
+                                "invalid move", ex);
+                    }
+                }
+
+                int result = record.getResult();
+
+                for(int ply = RANDOM_PLIES; ply < record.getPly(); ply++) {
+                    BoardImpl board = new BoardImpl(
+                            record.getPreviousBoard(ply));
+                    int playerNum = 1 + ply % 2;
+
+                    if(board.getCaptureMoves(playerNum) != 0) {
+                        continue;
+                    }
+
+                    board.getHouses(houses);
+
+                    for(int seeds : houses) {
+                        out.print(seeds);
+                        out.print(' ');
+                    }
+                    out.println(board.getScore(1) + " " + board.getScore(2) +
+                            " " + playerNum + " " + result);
+                    positions++;
+                }
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Reads a positions file, turning each position into its features.
+     *
+     * @param file the positions file.
+     * @throws IOException if the file cannot be read or a line is not a
+     * position.
+     */
+    public void read(File file) throws IOException {
+        int[] houses = new int[MoveKernel.HOUSES];
+        int[] position = new int[Evaluation.FEATURES];
+
+        try(BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line;
+
+            while((line = in.readLine()) != null) {
+                String[] fields = line.trim().split("\\s+");
+
+                if(fields.length == 1 && fields[0].isEmpty()) {
+                    continue;
+                }
+                if(fields.length != MoveKernel.HOUSES + 4) {
+                    throw new IOException("Not a position: " + line);
+                }
+
+                try {
+                    for(int i = 0; i < MoveKernel.HOUSES; i++) {
+                        houses[i] = Integer.parseInt(fields[i]);
+                    }
+
+                    int playerNum = Integer.parseInt(fields[14]);
+                    int winner = Integer.parseInt(fields[15]);
+
+                    Evaluation.features(houses, Integer.parseInt(fields[12]),
+                            Integer.parseInt(fields[13]), playerNum,
+                            position);
+                    add(position, winner == 0 ? 1 : winner == playerNum ?
+                            2 : 0);
+                }
+                catch(NumberFormatException ex) {
+                    throw new IOException("Not a position: " + line, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a position.
+     *
+     * @param position the features of the position, each from -48 to 48.
+     * @param result the result for the player to move in half points: 2 for
+     * a win, 1 for a draw and 0 for a loss.
+     */
+    public void add(int[] position, int result) {
+        if(size == results.length) {
+            results = Arrays.copyOf(results, 2 * size);
+            features = Arrays.copyOf(features, 2 * size *
+                    Evaluation.FEATURES);
+        }
+
+        for(int i = 0; i < Evaluation.FEATURES; i++) {
+            features[size * Evaluation.FEATURES + i] = (byte) position[i];
+        }
+        results[size++] = (byte) result;
+    }
+
+    /**
+     * @return the number of positions added.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the constant K the evaluation is scaled by, per seed.
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Finds the K that gives the weights the least error, by golden section
+     * search.
+     *
+     * @param weights the weights to fit K for.
+     */
+    public void fitScale(int[] weights) {
+        double[] w = toDouble(weights);
+        double ratio = (Math.sqrt(5) - 1) / 2;
+        double low = 0.01;
+        double high = 10;
+
+        while(high - low > 1e-4) {
+            double a = high - ratio * (high - low);
+            double b = low + ratio * (high - low);
+
+            scale = a;
+            double errorA = pass(w)[Evaluation.FEATURES];
+            scale = b;
+            double errorB = pass(w)[Evaluation.FEATURES];
+
+            if(errorA < errorB) {
+                high = b;
+            }
+            else {
+                low = a;
+            }
+        }
+        scale = (low + high) / 2;
+    }
+
+    /**
+     * The mean squared error of the predicted results.
+     *
+     * @param weights the weights to evaluate with.
+     * @return the error.
+     */
+    public double error(int[] weights) {
+        return pass(toDouble(weights))[Evaluation.FEATURES];
+    }
+
+    /**
+     * Fits the weights by gradient descent, with the Adam update.
+     *
+     * @param weights the weights to start from. The score weight is kept.
+     * @param iterations the number of steps.
+     * @return the fitted weights, rounded.
+     */
+    public int[] tune(int[] weights, int iterations) {
+        double[] w = toDouble(weights);
+        double[] m = new double[Evaluation.FEATURES];
+        double[] v = new double[Evaluation.FEATURES];
+
+        for(int t = 1; t <= iterations; t++) {
+            double[] gradient = pass(w);
+
+            for(int i = 0; i < Evaluation.FEATURES; i++) {
+                if(i == Evaluation.SCORE) {
+                    continue;
+                }
+
+                m[i] = 0.9 * m[i] + 0.1 * gradient[i];
+                v[i] = 0.999 * v[i] + 0.001 * gradient[i] * gradient[i];
+
+                double mHat = m[i] / (1 - Math.pow(0.9, t));
+                double vHat = v[i] / (1 - Math.pow(0.999, t));
+                w[i] -= LEARNING_RATE * mHat / (Math.sqrt(vHat) + 1e-12);
+            }
+        }
+
+        int[] tuned = new int[Evaluation.FEATURES];
+
+        for(int i = 0; i < Evaluation.FEATURES; i++) {
+            tuned[i] = (int) Math.round(w[i]);
+        }
+        return tuned;
+    }
+
+    /**
+     * Stops the threads. The tuner cannot be used afterwards.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * One pass over the positions.
+     *
+     * @return the gradient of the mean squared error for each weight,
+     * followed by the error itself.
+     */
+    private double[] pass(double[] weights) {
+        double[] sums = pool.invoke(new Pass(weights, 0, size));
+
+        for(int i = 0; i < sums.length; i++) {
+            sums[i] /= Math.max(size, 1);
+        }
+        return sums;
+    }
+
+    private static double[] toDouble(int[] weights) {
+        double[] w = new double[Evaluation.FEATURES];
+
+        for(int i = 0; i < Evaluation.FEATURES; i++) {
+            w[i] = weights[i];
+        }
+        return w;
+    }
+
+    /**
+     * Sums the gradient and error over a range of positions, splitting it
+     * between tasks while it is large.
+     */
+    private final class Pass extends RecursiveTask<double[]> {
+
+        private final double[] weights;
+        private final int from;
+        private final int to;
+
+        Pass(double[] weights, int from, int to) {
+            this.weights = weights;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[] compute() {
+            if(to - from > BATCH) {
+                int middle = (from + to) >>> 1;
+                Pass left = new Pass(weights, from, middle);
+                left.fork();
+
+                double[] sums = new Pass(weights, middle, to).compute();
+                double[] other = left.join();
+
+                for(int i = 0; i < sums.length; i++) {
+                    sums[i] += other[i];
+                }
+                return sums;
+            }
+
+            double[] sums = new double[Evaluation.FEATURES + 1];
+            double k = scale / SearchEngine.SEED_VALUE;
+
+            for(int p = from; p < to; p++) {
+                int base = p * Evaluation.FEATURES;
+                double eval = 0;
+
+                for(int i = 0; i < Evaluation.FEATURES; i++) {
+                    eval += weights[i] * features[base + i];
+                }
+
+                double predicted = 1 / (1 + Math.exp(-k * eval));
+                double error = results[p] / 2.0 - predicted;
+
+                // d(error^2)/dw = -2 error predicted (1 - predicted) k f.
+                double slope = -2 * error * predicted * (1 - predicted) * k;
+
+                for(int i = 0; i < Evaluation.FEATURES; i++) {
+                    sums[i] += slope * features[base + i];
+                }
+                sums[Evaluation.FEATURES] += error * error;
+            }
+            return sums;
+        }
+    }
+
+    /**
+     * Plays a few random moves, then searches each move to a fixed depth.
+     */
+    private static final class FixedDepthPlayer implements Player {
+
+        private final SearchEngine engine;
+        private final int depth;
+        private final Random random;
+        private int moves;
+
+        FixedDepthPlayer(int depth, Random random) {
+            this.engine = new SearchEngine(new TranspositionTable(4,
+                    ReplacementPolicy.DEPTH_PREFERRED_AND_ALWAYS));
+            this.depth = depth;
+            this.random = random;
+        }
+
+        @Override
+        public int getMove(Board b, int playerNum) {
+            int legal = b.getLegalMoves(playerNum);
+
+            // Each player's share of the first RANDOM_PLIES moves is random.
+            if(moves++ < RANDOM_PLIES / 2) {
+                int house;
+
+                do {
+                    house = 1 + random.nextInt(6);
+                }
+                while((legal & (1 << (house - 1))) == 0);
+
+                return house;
+            }
+            return engine.search(b, playerNum, Long.MAX_VALUE, depth);
+        }
+
+        @Override
+        public boolean isComputer() {
+            return true;
+        }
+
+        @Override
+        public void setIn(InputStream in) {
+        }
+
+        @Override
+        public void setOut(PrintStream out) {
+        }
+    }
+}
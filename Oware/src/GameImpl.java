@@ -17,9 +17,7 @@
  */
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import utilities.LongHashSet;
 
 /**
  * An object representing the state of the game.
@@ -34,10 +32,16 @@ public class GameImpl implements Game, Serializable {
     private String player1Name;
     private String player2Name;
     private byte turn;
-    private BoardImpl board;
-    private List<Board> previousBoards;
+    private Board board;
+    private Board boardView;
+    private LongHashSet previousPositions;
+    private MoveLog history;
+    private int ply;
     private int consecutiveMoves;
     private boolean isFinished;
+    private int forfeited;
+    private long[] moveNanos;
+    private transient GameRenderer renderer;
     
     /**
      * Constructor for the GameImpl class.
@@ -46,14 +50,31 @@ public class GameImpl implements Game, Serializable {
      * @param player2 another player.
      */
     public GameImpl(Player player1, Player player2) {
+        this(player1, player2, new BoardImpl());
+    }
+    
+    /**
+     * Constructor for the GameImpl class that plays on a given board, e.g. a
+     * {@link PackedBoard}.
+     * 
+     * @param player1 a player.
+     * @param player2 another player.
+     * @param board the board to start the game from.
+     */
+    public GameImpl(Player player1, Player player2, Board board) {
         this.player1 = player1;
         this.player2 = player2;
         
-        board = new BoardImpl();
+        this.board = board;
+        boardView = new ReadOnlyBoard(board);
         turn = 1;
-        previousBoards = new ArrayList<>();
+        previousPositions = new LongHashSet();
+        history = new MoveLog(board, turn);
+        ply = 0;
         consecutiveMoves = 0;
         isFinished = false;
+        forfeited = 0;
+        moveNanos = new long[2];
     }
     
     /**
@@ -74,6 +95,24 @@ public class GameImpl implements Game, Serializable {
         }
     }
 
+    /**
+     * A method to fetch a player of the game.
+     * 
+     * @param playerNum the number of the player in the context of the game.
+     * @return the player.
+     */
+    public Player getPlayer(int playerNum) {
+        if(playerNum == 1) {
+            return player1;
+        }
+        else if(playerNum == 2) {
+            return player2;
+        }
+        else {
+            throw new IllegalArgumentException("Invalid player number!");
+        }
+    }
+
     /**
      * A method to get the number of the player whose turn it currently is.
      * 
@@ -98,7 +137,10 @@ public class GameImpl implements Game, Serializable {
     @Override
     public int getResult() {
         if(isFinished) {
-            if(board.getScore(1) > board.getScore(2)) {
+            if(forfeited != 0) {
+                return 3 - forfeited;
+            }
+            else if(board.getScore(1) > board.getScore(2)) {
                 return 1;
             }
             else if(board.getScore(1) < board.getScore(2)) {
@@ -116,12 +158,10 @@ public class GameImpl implements Game, Serializable {
 
     @Override
     public boolean positionRepeated() {
-        for(Board oldBoard : previousBoards) {
-            if(board.equals(oldBoard)) {
-                return true;
-            }
-        }
-        return false;
+        
+        // Positions are compared regardless of who is to move, as equals
+        // compared previous boards.
+        return previousPositions.contains(board.getPositionKey(1));
     }
 
     @Override
@@ -140,30 +180,52 @@ public class GameImpl implements Game, Serializable {
             return;
         }
         
-        else if(board.getScore(1) > 24 || board.getScore(2) > 24 || 
-                (board.getScore(1) + board.getScore(2)) == 48) {
+        int previousP1Score = board.getScore(1);
+        int previousP2Score = board.getScore(2);
+        
+        if(previousP1Score > 24 || previousP2Score > 24 || 
+                previousP1Score + previousP2Score == 48) {
             isFinished = true;
             return;
         }
         
-        Board previousBoard = board.clone();
-        
-        int previousP1Score = board.getScore(1);
-        int previousP2Score = board.getScore(2);
+        long previousPosition = board.getPositionKey(1);
+        long previousKey = board.getPositionKey(turn);
+
+        // Players get a read-only view, which they must clone to experiment.
+        long start = System.nanoTime();
+        int move = getCurrentPlayer().getMove(boardView, turn);
+        moveNanos[turn - 1] = System.nanoTime() - start;
 
         // Throws the InvalidHouse/InvalidMove exceptions.
-        board.makeMove(getCurrentPlayer().getMove(board.clone(), turn), 
-                getCurrentPlayerNum());
+        board.makeMove(move, getCurrentPlayerNum());
+        
+        // Add the previous position to the set of previous positions.
+        previousPositions.add(previousPosition);
         
-        // Add the previous board to the list of previous boards.
-        previousBoards.add(previousBoard);
+        boolean capture = previousP1Score != board.getScore(1) ||
+                previousP2Score != board.getScore(2);
         
-        if(previousP1Score == board.getScore(1) && 
-                previousP2Score == board.getScore(2)) {
+        // Making a move after undoing discards the moves that were undone,
+        // unless it is the same move that was taken back.
+        if(ply < history.size() && history.getMove(ply) != move) {
+            history.truncate(ply);
+        }
+        
+        if(ply == history.size()) {
+            history.record(move, capture, previousKey, board);
+        }
+        ply++;
+        
+        if(!capture) {
             consecutiveMoves ++;
         }
         else {
             consecutiveMoves = 0;
+            
+            // A capture leaves fewer seeds on the board, so no earlier
+            // position can occur again.
+            previousPositions.clear();
         }
         
         turn = (byte) (3 - turn);
@@ -172,58 +234,58 @@ public class GameImpl implements Game, Serializable {
 
     @Override
     public String toString() {
-        String output = new String();
-        output += getPlayerName(1) + ": " + board.getScore(1) + "\n";
-        output += getPlayerName(2) + ": " + board.getScore(2) + "\n";
-        output += getPlayerName(turn) + " to play.\n\n";
-        
-        List<String> houseValues = new ArrayList<>();
-        houseValues = Arrays.asList(board.toString().split(":")[0].split(" "));
-        
-        for(int i = 0; i < 12; i++) {
-            output += "House " + (i+1) + " contains " + houseValues.get(i) + 
-                    " seeds\n";
+        if(renderer == null) {
+            renderer = new GameRenderer();
         }
-//        output += "_\u03326_\u03325_\u03324_\u03323_\u03322_\u03321_\n";
-//        
-//        for(int i = 0; i < 6; i++) {
-//            output += "|\u0332\u0305" + houseValues.get(i);
-//        }
-//        
-//        output += "|\n";
-//        output += "|-----------|\n";
-//        
-//        for(int i = 6; i < 12; i++) {
-//            output += "|" + houseValues.get(i);
-//        }
-//        
-//        output += "|\n";
-//        output += "-------------\n";
-//        
-//        output += " 1 2 3 4 5 6 \n";
-        
-        return output;
+        return renderer.render(board, turn, getPlayerName(1), 
+                getPlayerName(2));
     }
 
     /**
-     * Captures all seeds in houses and adds to the house owner's score.
+     * Ends the game as a loss for a player, whatever the score, e.g. when a
+     * computer player takes too long over a move.
      * 
-     * @throws InvalidHouseException if {@link 
-     * BoardImpl#indexToHouseConversion(int) indexToHouseConversion} or {@link
-     * BoardImpl#houseToIndexConversion(int, int) indexToHouseConversion} have
-     * failed.
+     * @param playerNum the number of the player who forfeits.
      */
-    private void captureAllSeeds() throws InvalidHouseException {
-        for(int i = 0; i < 12; i++) {
-                    
-            int house = board.indexToHouseConversion(i);
-            int playerNum = board.indexToPlayerConversion(i);
-            int seeds = 0;
-
-            seeds = board.getSeeds(house, playerNum) + 
-                    board.getScore(playerNum);
+    public void forfeit(int playerNum) {
+        if(playerNum != 1 && playerNum != 2) {
+            throw new IllegalArgumentException("Invalid player number!");
+        }
+        
+        forfeited = playerNum;
+        isFinished = true;
+    }
+    
+    /**
+     * The number of the player who forfeited the game.
+     * 
+     * @return 1 or 2, or 0 if neither player has forfeited.
+     */
+    public int getForfeited() {
+        return forfeited;
+    }
+    
+    /**
+     * The time the specified player's last call to getMove took, whether or
+     * not the move it returned was valid.
+     * 
+     * @param playerNum the number of the player.
+     * @return the time in nanoseconds, or 0 if the player has not moved.
+     */
+    public long getLastMoveNanos(int playerNum) {
+        if(playerNum != 1 && playerNum != 2) {
+            throw new IllegalArgumentException("Invalid player number!");
+        }
+        return moveNanos[playerNum - 1];
+    }
 
-            board.setScore(seeds, playerNum);
+    /**
+     * Captures all seeds in houses and adds to the house owner's score.
+     */
+    private void captureAllSeeds() {
+        for(int playerNum = 1; playerNum < 3; playerNum++) {
+            board.setScore(board.getScore(playerNum) + 
+                    board.getSideSeeds(playerNum), playerNum);
         }        
     }
 
@@ -232,19 +294,105 @@ public class GameImpl implements Game, Serializable {
      * 
      * @return <code>true</code> if no move can be made (houses are all empty)
      * <code>false</code> otherwise.
+     */
+    private boolean noPossibleMove() {
+        return board.getSideSeeds(turn) == 0;
+    }
+
+    /**
+     * The number of moves made to reach the current position.
      * 
-     * @throws InvalidHouseException If the parameters to {@link 
-     * Board#getSeeds(int, int) getSeeds(int house, int playerNum)} are
-     * incorrect.
+     * @return the current ply of the game.
      */
-    private boolean noPossibleMove() throws InvalidHouseException {
-        for(int i = 1; i < 7; i++) {
-            if(board.getSeeds(i, turn) != 0) {
-                return false;
-            }
+    public int getPly() {
+        return ply;
+    }
+    
+    /**
+     * The number of moves in the game's history, including any that have been
+     * undone and can be redone.
+     * 
+     * @return the number of plies recorded.
+     */
+    public int getHistoryLength() {
+        return history.size();
+    }
+    
+    /**
+     * Rebuilds the board as it was earlier in the game.
+     * 
+     * @param ply the number of moves that had been made, from 0 (the start of
+     * the game) to {@link #getHistoryLength()}.
+     * @return a copy of the board before the move at that ply.
+     */
+    public Board getPreviousBoard(int ply) {
+        return history.getBoard(ply);
+    }
+    
+    /**
+     * Takes back the last move.
+     * 
+     * @return <code>false</code> if there was no move to take back.
+     */
+    public boolean undo() {
+        if(ply == 0) {
+            return false;
         }
+        seekToPly(ply - 1);
         return true;
     }
+    
+    /**
+     * Plays again the last move taken back by {@link #undo()}.
+     * 
+     * @return <code>false</code> if there was no move to redo.
+     */
+    public boolean redo() {
+        if(ply == history.size()) {
+            return false;
+        }
+        seekToPly(ply + 1);
+        return true;
+    }
+    
+    /**
+     * Moves the game to the position after a given number of moves. The board
+     * is rebuilt from the nearest checkpoint in the history, so the cost does
+     * not grow with the length of the game. Moves after the new position are
+     * kept until a different move is made.
+     * 
+     * @param ply the number of moves, from 0 to {@link #getHistoryLength()}.
+     */
+    public void seekToPly(int ply) {
+        if(ply < 0 || ply > history.size()) {
+            throw new IllegalArgumentException("Ply must be in the range " +
+                    "0.." + history.size());
+        }
+        
+        board = history.getBoard(ply);
+        boardView = new ReadOnlyBoard(board);
+        turn = (byte) history.getPlayer(ply);
+        this.ply = ply;
+        isFinished = false;
+        forfeited = 0;
+        
+        // Positions before the last capture cannot repeat, so only those since
+        // then are needed to restore the repetition set and move counter.
+        int lastCapture = ply - 1;
+        
+        while(lastCapture >= 0 && !history.isCapture(lastCapture)) {
+            lastCapture--;
+        }
+        
+        previousPositions.clear();
+        
+        for(int i = lastCapture + 1; i < ply; i++) {
+            previousPositions.add(history.getKey(i) ^ 
+                    Zobrist.side(history.getPlayer(i)));
+        }
+        
+        consecutiveMoves = ply - 1 - lastCapture;
+    }
 
     /**
      * Returns a string representation of the specified player's name.
@@ -53,9 +53,12 @@ public class GameManagerImpl implements GameManager, Serializable {
     private InputStream in;
     private PrintStream out;
     private Scanner scanner;
+    private TimeControl timeControl;
     
     public GameManagerImpl() {
         
+        timeControl = TimeControl.getDefault();
+        
         mainMenu = new String();
         
         mainMenu += "|| " + "Main menu" + "                               ||\n";
@@ -105,23 +108,79 @@ public class GameManagerImpl implements GameManager, Serializable {
     @Override
     public int playGame() throws QuitGameException {
         
-        while(!(game.getResult() == 0 || game.getResult() == 1 ||
-                game.getResult() == 2)) {
-            
-            out.println("\n" + game.toString());
-            
-            try {
-                game.nextMove();
-            } 
-            catch(InvalidHouseException | InvalidMoveException |
-                    IllegalArgumentException | IllegalStateException ex) {
-                out.println("\n" + ex.getMessage());
+        try {
+            while(!(game.getResult() == 0 || game.getResult() == 1 ||
+                    game.getResult() == 2)) {
+                
+                out.println("\n" + game.toString());
+                
+                int playerNum = game.getCurrentPlayerNum();
+                Player player = game.getCurrentPlayer();
+                
+                try {
+                    game.nextMove();
+                } 
+                catch(InvalidHouseException | InvalidMoveException |
+                        IllegalArgumentException | IllegalStateException ex) {
+                    out.println("\n" + ex.getMessage());
+                }
+                
+                enforceTimeLimit(player, playerNum);
             }
         }
+        finally {
+            shutdownPlayers();
+        }
         
         return game.getResult();
     }
 
+    /**
+     * Sets the time control that computer players are held to.
+     * 
+     * @param timeControl the time control.
+     */
+    public void setTimeControl(TimeControl timeControl) {
+        this.timeControl = timeControl;
+    }
+    
+    /**
+     * Stops computer players searching on their opponent's time and releases
+     * their search threads once the game is over or left.
+     */
+    private void shutdownPlayers() {
+        if(!(game instanceof GameImpl)) {
+            return;
+        }
+        
+        for(int playerNum = 1; playerNum < 3; playerNum++) {
+            Player player = ((GameImpl) game).getPlayer(playerNum);
+            
+            if(player instanceof ComputerPlayer) {
+                ((ComputerPlayer) player).shutdown();
+            }
+        }
+    }
+    
+    /**
+     * Forfeits the game for a computer player whose last move took longer
+     * than the time control allows.
+     */
+    private void enforceTimeLimit(Player player, int playerNum) {
+        if(!player.isComputer() || !(game instanceof GameImpl)) {
+            return;
+        }
+        
+        GameImpl gameImpl = (GameImpl) game;
+        long nanos = gameImpl.getLastMoveNanos(playerNum);
+        
+        if(timeControl.exceeded(nanos)) {
+            gameImpl.forfeit(playerNum);
+            out.println("\nPlayer " + playerNum + " took " + nanos / 1000000 +
+                    " ms to move and forfeits the game.");
+        }
+    }
+
     @Override
     public Game manage(InputStream in, PrintStream out) {
         
@@ -346,6 +405,14 @@ public class GameManagerImpl implements GameManager, Serializable {
             players[0].setOut(out);
             players[1].setOut(out);
             
+            // A computer player searches on a human opponent's time.
+            for(int i = 0; i < 2; i++) {
+                if(players[i] instanceof ComputerPlayer && 
+                        !players[1 - i].isComputer()) {
+                    ((ComputerPlayer) players[i]).setPondering(true);
+                }
+            }
+            
             GameImpl newGame = new GameImpl(players[0], players[1]);
 
             // Assigning player names.
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+/**
+ * Renders the game state shown to players after every turn.
+ *
+ * The text is written into a reused buffer straight from the board's house
+ * counts. The last frame is kept together with the position key, side to move
+ * and player names it was rendered from, and is returned unchanged until one
+ * of those changes.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class GameRenderer {
+
+    private final StringBuilder buffer;
+    private final int[] houses;
+
+    private String frame;
+    private long frameKey;
+    private String frameName1;
+    private String frameName2;
+
+    /**
+     * Default constructor for GameRenderer class.
+     */
+    public GameRenderer() {
+        buffer = new StringBuilder(512);
+        houses = new int[MoveKernel.HOUSES];
+    }
+
+    /**
+     * Renders the game state, or returns the previous frame if nothing shown
+     * in it has changed.
+     *
+     * @param board the board of the game.
+     * @param turn the number of the player to move.
+     * @param player1Name the name of player 1.
+     * @param player2Name the name of player 2.
+     * @return the summary of the game state.
+     */
+    public String render(Board board, int turn, String player1Name,
+            String player2Name) {
+
+        // The key covers the houses, scores and side to move.
+        long key = board.getPositionKey(turn);
+
+        if(frame != null && key == frameKey && player1Name == frameName1 &&
+                player2Name == frameName2) {
+            return frame;
+        }
+
+        board.getHouses(houses);
+        buffer.setLength(0);
+
+        buffer.append(player1Name).append(": ").append(board.getScore(1))
+                .append('\n');
+        buffer.append(player2Name).append(": ").append(board.getScore(2))
+                .append('\n');
+        buffer.append(turn == 1 ? player1Name : player2Name)
+                .append(" to play.\n\n");
+
+        for(int i = 0; i < MoveKernel.HOUSES; i++) {
+            buffer.append("House ").append(i + 1).append(" contains ")
+                    .append(houses[i]).append(" seeds\n");
+        }
+
+        frame = buffer.toString();
+        frameKey = key;
+        frameName1 = player1Name;
+        frameName2 = player2Name;
+
+        return frame;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A multi-threaded search in the Lazy SMP style.
+ *
+ * Helper engines search the same position as the main engine on their own
+ * threads, sharing its {@link TranspositionTable} but nothing else. The main
+ * engine runs on the calling thread and its move is the one returned; when it
+ * finishes the helpers are told to stop and waited for. The helpers only help
+ * through the results they leave in the table.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class LazySmpSearch implements MoveSearch {
+
+    private final SearchEngine main;
+    private final SearchEngine[] helpers;
+    private final AtomicBoolean stopSignal;
+    private final ExecutorService pool;
+
+    private long nodes;
+    private long helperNodes;
+
+    /**
+     * Constructor for LazySmpSearch class, with a transposition table
+     * configured from system properties.
+     *
+     * @param threads the number of threads to search with, including the
+     * calling thread.
+     */
+    public LazySmpSearch(int threads) {
+        this(threads, new TranspositionTable());
+    }
+
+    /**
+     * Constructor for LazySmpSearch class.
+     *
+     * @param threads the number of threads to search with, including the
+     * calling thread.
+     * @param table the transposition table shared by the threads.
+     */
+    public LazySmpSearch(int threads, TranspositionTable table) {
+        if(threads < 1) {
+            throw new IllegalArgumentException("threads should be at least 1");
+        }
+
+        stopSignal = new AtomicBoolean();
+        main = new SearchEngine(table, 0, stopSignal);
+        helpers = new SearchEngine[threads - 1];
+
+        for(int i = 0; i < helpers.length; i++) {
+            helpers[i] = new SearchEngine(table, i + 1, stopSignal);
+        }
+
+        pool = Executors.newFixedThreadPool(Math.max(1, helpers.length),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "oware-search-helper");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    @Override
+    public int search(final Board position, final int playerNum,
+            final long deadline) {
+
+        // Copy the position before the helpers start, as it may be a view of
+        // a board the caller changes after we return.
+        final Board copy = new BoardImpl(position);
+
+        if(copy.getLegalMoves(playerNum) == 0) {
+            throw new IllegalArgumentException("Player " + playerNum +
+                    " has no legal move.");
+        }
+
+        List<Future<?>> running = new ArrayList<>(helpers.length);
+        stopSignal.set(false);
+
+        for(final SearchEngine helper : helpers) {
+            running.add(pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    helper.search(copy, playerNum, deadline);
+                }
+            }));
+        }
+
+        int move;
+
+        try {
+            move = main.search(copy, playerNum, deadline);
+        }
+        finally {
+            stopSignal.set(true);
+            awaitHelpers(running);
+        }
+
+        helperNodes = 0;
+
+        for(SearchEngine helper : helpers) {
+            helperNodes += helper.getNodes();
+        }
+
+        nodes = main.getNodes() + helperNodes;
+
+        return move;
+    }
+
+    /**
+     * @return the number of positions visited by all threads in the last
+     * search.
+     */
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the number of positions visited by the helper threads in the
+     * last search.
+     */
+    public long getHelperNodes() {
+        return helperNodes;
+    }
+
+    @Override
+    public int getCompletedDepth() {
+        return main.getCompletedDepth();
+    }
+
+    @Override
+    public int getBestScore() {
+        return main.getBestScore();
+    }
+
+    /**
+     * @return the number of threads searching, including the calling thread.
+     */
+    public int getThreads() {
+        return helpers.length + 1;
+    }
+
+    /**
+     * @return the transposition table shared by the threads.
+     */
+    public TranspositionTable getTable() {
+        return main.getTable();
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static void awaitHelpers(List<Future<?>> running) {
+        boolean interrupted = false;
+
+        for(Future<?> future : running) {
+            while(true) {
+                try {
+                    future.get();
+                    break;
+                }
+                catch(InterruptedException ex) {
+                    interrupted = true;
+                }
+                catch(ExecutionException ex) {
+                    throw new IllegalStateException("A search helper failed",
+                            ex.getCause());
+                }
+            }
+        }
+
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
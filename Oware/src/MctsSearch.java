@@ -0,0 +1,618 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Monte Carlo tree search using UCT, with several threads sharing one tree.
+ *
+ * The tree is held in preallocated arrays indexed by node number rather than
+ * in node objects. A node's children are allocated together, so a node only
+ * records the index of its first child and how many it has. Visit counts and
+ * results are atomic, and a thread counts its visit to every node on the way
+ * down, before the playout result is known. Until the result is added the
+ * visit looks like a loss (a virtual loss), which steers other threads to
+ * different lines.
+ *
+ * Positions are not stored in the tree. Each playout replays the moves from
+ * the root onto an array of houses with {@link MoveKernel}, then plays random
+ * moves to the end of the game, so a playout allocates nothing.
+ *
+ * Results are counted in half points for the player who made the move into a
+ * node: 2 for a win, 1 for a draw and 0 for a loss.
+ *
+ * A node where the game is over is marked with its result, and the marks are
+ * backed up the tree as in an MCTS solver: a node is lost for the player who
+ * moved into it if the opponent has a winning reply, and decided once all of
+ * its children are. A playout reaching a marked node scores its result
+ * without playing on, selection always takes a won child and passes over lost
+ * ones, and a won move at the root is played whatever its visit count. The
+ * search stops early once the root is decided.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class MctsSearch implements MoveSearch {
+
+    /**
+     * The number of nodes the tree holds when none is given.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 21;
+
+    /**
+     * The weight of exploration against the mean result in UCT.
+     */
+    public static final double EXPLORATION = 1.4;
+
+    /**
+     * The number of plies after which a playout is scored as it stands.
+     */
+    public static final int MAX_PLAYOUT_PLIES = 300;
+
+    private static final int CHECK_INTERVAL = 63;
+    private static final int UNEXPANDED = 0;
+    private static final int EXPANDING = -1;
+
+    // Marks for decided nodes, each one more than the result in half points.
+    private static final int UNSOLVED = 0;
+    private static final int SOLVED_LOSS = 1;
+    private static final int SOLVED_DRAW = 2;
+    private static final int SOLVED_WIN = 3;
+
+    private final AtomicIntegerArray visits;
+    private final AtomicLongArray results;
+    private final AtomicIntegerArray children;
+    private final AtomicIntegerArray solved;
+    private final byte[] childCount;
+    private final byte[] moves;
+    private final AtomicInteger size;
+    private volatile boolean full;
+
+    private final Worker[] workers;
+    private final AtomicBoolean stopSignal;
+    private final ExecutorService pool;
+
+    private int[] rootHouses;
+    private int rootScore1;
+    private int rootScore2;
+    private int rootPlayer;
+    private long deadline;
+
+    private long playouts;
+    private int maxDepth;
+    private int bestScore;
+
+    /**
+     * Constructor for MctsSearch class, with a tree of
+     * {@link #DEFAULT_CAPACITY} nodes.
+     *
+     * @param threads the number of threads to search with, including the
+     * calling thread.
+     */
+    public MctsSearch(int threads) {
+        this(threads, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for MctsSearch class.
+     *
+     * @param threads the number of threads to search with, including the
+     * calling thread.
+     * @param capacity the number of nodes the tree can hold.
+     */
+    public MctsSearch(int threads, int capacity) {
+        if(threads < 1) {
+            throw new IllegalArgumentException("threads should be at least 1");
+        }
+        if(capacity < 7) {
+            throw new IllegalArgumentException("capacity should be at least 7");
+        }
+
+        visits = new AtomicIntegerArray(capacity);
+        results = new AtomicLongArray(capacity);
+        children = new AtomicIntegerArray(capacity);
+        solved = new AtomicIntegerArray(capacity);
+        childCount = new byte[capacity];
+        moves = new byte[capacity];
+        size = new AtomicInteger();
+
+        workers = new Worker[threads];
+
+        for(int i = 0; i < threads; i++) {
+            workers[i] = new Worker(0x9E3779B97F4A7C15L * (i + 1));
+        }
+
+        stopSignal = new AtomicBoolean();
+        pool = Executors.newFixedThreadPool(Math.max(1, threads - 1),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "oware-mcts-worker");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    @Override
+    public int search(Board position, int playerNum, long deadline) {
+        int legal = position.getLegalMoves(playerNum);
+
+        if(legal == 0) {
+            throw new IllegalArgumentException("Player " + playerNum +
+                    " has no legal move.");
+        }
+
+        rootHouses = new int[MoveKernel.HOUSES];
+        position.getHouses(rootHouses);
+        rootScore1 = position.getScore(1);
+        rootScore2 = position.getScore(2);
+        rootPlayer = playerNum;
+        this.deadline = deadline;
+
+        clearTree();
+        stopSignal.set(false);
+
+        List<Future<?>> running = new ArrayList<>(workers.length - 1);
+
+        for(int i = 1; i < workers.length; i++) {
+            running.add(pool.submit(workers[i]));
+        }
+
+        try {
+            workers[0].run();
+        }
+        finally {
+            stopSignal.set(true);
+            awaitWorkers(running);
+        }
+
+        playouts = 0;
+        maxDepth = 0;
+
+        for(Worker worker : workers) {
+            playouts += worker.playouts;
+            maxDepth = Math.max(maxDepth, worker.maxDepth);
+        }
+
+        return bestMove();
+    }
+
+    /**
+     * @return the number of playouts made by the last search.
+     */
+    @Override
+    public long getNodes() {
+        return playouts;
+    }
+
+    /**
+     * @return the deepest line in the tree of the last search.
+     */
+    @Override
+    public int getCompletedDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return the mean result of the move returned by the last search, from
+     * -1000 for a certain loss to 1000 for a certain win.
+     */
+    @Override
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * @return the number of nodes in the tree of the last search.
+     */
+    public int getTreeSize() {
+        return Math.min(size.get(), visits.length());
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private void clearTree() {
+        int used = getTreeSize();
+
+        for(int i = 0; i < used; i++) {
+            visits.set(i, 0);
+            results.set(i, 0);
+            children.set(i, UNEXPANDED);
+            solved.set(i, UNSOLVED);
+        }
+
+        // Node 0 is the root.
+        size.set(1);
+        full = false;
+    }
+
+    /**
+     * A won move at the root if there is one, otherwise the most visited move
+     * not known to lose.
+     */
+    private int bestMove() {
+        int first = children.get(0);
+        int best = 0;
+        int bestVisits = -1;
+        boolean bestLost = true;
+
+        if(first > 0) {
+            for(int child = first; child < first + childCount[0]; child++) {
+                int proof = solved.get(child);
+
+                if(proof == SOLVED_WIN) {
+                    bestScore = 1000;
+                    return moves[child];
+                }
+
+                boolean lost = proof == SOLVED_LOSS;
+
+                if((bestLost && !lost) || (bestLost == lost &&
+                        visits.get(child) > bestVisits)) {
+                    bestVisits = visits.get(child);
+                    bestLost = lost;
+                    best = child;
+                }
+            }
+        }
+
+        if(best == 0 || bestVisits == 0) {
+            bestScore = 0;
+            return Integer.numberOfTrailingZeros(
+                    MoveKernel.legalMoves(rootHouses, rootPlayer)) + 1;
+        }
+
+        bestScore = bestLost ? -1000 :
+                (int) (results.get(best) * 1000 / bestVisits) - 1000;
+        return moves[best];
+    }
+
+    /**
+     * Makes children for a node, unless another thread is doing so or the
+     * tree is full.
+     *
+     * @return <code>true</code> if the node now has children.
+     */
+    private boolean expand(int node, int legal) {
+        if(full || !children.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+            return false;
+        }
+
+        int count = Integer.bitCount(legal);
+        int first = size.getAndAdd(count);
+
+        if(first + count > visits.length()) {
+            full = true;
+            children.set(node, UNEXPANDED);
+            return false;
+        }
+
+        int child = first;
+
+        for(int house = 1; house < 7; house++) {
+            if((legal & (1 << (house - 1))) != 0) {
+                moves[child++] = (byte) house;
+            }
+        }
+        childCount[node] = (byte) count;
+
+        // Publishes the moves and count written above.
+        children.set(node, first);
+        return true;
+    }
+
+    /**
+     * The child of a node with the best upper confidence bound, passing over
+     * lost children and taking a won one straight away.
+     */
+    private int select(int node, int first) {
+        int count = childCount[node];
+        double logParent = Math.log(Math.max(1, visits.get(node)));
+        double bestValue = -1;
+        int best = first;
+
+        for(int child = first; child < first + count; child++) {
+            int proof = solved.get(child);
+
+            if(proof == SOLVED_WIN) {
+                return child;
+            }
+            else if(proof == SOLVED_LOSS) {
+                continue;
+            }
+
+            int n = visits.get(child);
+
+            if(n == 0) {
+                return child;
+            }
+
+            double value = results.get(child) / (2.0 * n) +
+                    EXPLORATION * Math.sqrt(logParent / n);
+
+            if(value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Marks the nodes above a newly decided node that are now decided too,
+     * from the deepest up.
+     *
+     * @param path the nodes from the root's child down to the decided node.
+     * @param depth the number of nodes in path.
+     */
+    private void backUp(int[] path, int depth) {
+        for(int i = depth - 1; i >= 0; i--) {
+            int parent = i == 0 ? 0 : path[i - 1];
+            int proof = proveFromChildren(parent);
+
+            if(proof == UNSOLVED ||
+                    !solved.compareAndSet(parent, UNSOLVED, proof)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The mark a node earns from its children: lost for the player who moved
+     * into it if any reply wins, otherwise the opposite of the best reply
+     * once every reply is decided.
+     */
+    private int proveFromChildren(int node) {
+        int first = children.get(node);
+
+        if(first <= 0) {
+            return UNSOLVED;
+        }
+
+        int best = UNSOLVED;
+        boolean open = false;
+
+        for(int child = first; child < first + childCount[node]; child++) {
+            int proof = solved.get(child);
+
+            if(proof == SOLVED_WIN) {
+                return SOLVED_LOSS;
+            }
+            else if(proof == UNSOLVED) {
+                open = true;
+            }
+            best = Math.max(best, proof);
+        }
+        return open ? UNSOLVED : SOLVED_WIN + SOLVED_LOSS - best;
+    }
+
+    private static void awaitWorkers(List<Future<?>> running) {
+        boolean interrupted = false;
+
+        for(Future<?> future : running) {
+            while(true) {
+                try {
+                    future.get();
+                    break;
+                }
+                catch(InterruptedException ex) {
+                    interrupted = true;
+                }
+                catch(ExecutionException ex) {
+                    throw new IllegalStateException("A search worker failed",
+                            ex.getCause());
+                }
+            }
+        }
+
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One thread's playouts, with the arrays it reuses for every one.
+     */
+    private final class Worker implements Runnable {
+
+        private final int[] houses = new int[MoveKernel.HOUSES];
+        private final int[] scores = new int[3];
+        private final int[] path = new int[MAX_PLAYOUT_PLIES + 1];
+        private final int[] movers = new int[MAX_PLAYOUT_PLIES + 1];
+        private long random;
+
+        long playouts;
+        int maxDepth;
+
+        Worker(long seed) {
+            random = seed;
+        }
+
+        @Override
+        public void run() {
+            playouts = 0;
+            maxDepth = 0;
+
+            do {
+                playout();
+                playouts++;
+            }
+            while((playouts & CHECK_INTERVAL) != 0 ||
+                    (!stopSignal.get() && solved.get(0) == UNSOLVED &&
+                    System.nanoTime() < deadline));
+        }
+
+        private void playout() {
+            System.arraycopy(rootHouses, 0, houses, 0, MoveKernel.HOUSES);
+            scores[1] = rootScore1;
+            scores[2] = rootScore2;
+
+            int player = rootPlayer;
+            int node = 0;
+            int depth = 0;
+            int legal = MoveKernel.legalMoves(houses, player);
+
+            visits.incrementAndGet(0);
+
+            // Walk down the tree, counting a visit to every node on the way,
+            // and add one level below the leaf reached. The walk stops early
+            // at a node whose result is known.
+            boolean expanded = false;
+            int proof = UNSOLVED;
+
+            while(!expanded && depth < MAX_PLAYOUT_PLIES && legal != 0 &&
+                    scores[1] <= 24 && scores[2] <= 24) {
+                int first = children.get(node);
+
+                if(first <= 0) {
+                    if(first == EXPANDING || !expand(node, legal)) {
+                        break;
+                    }
+                    first = children.get(node);
+                    expanded = true;
+                }
+
+                node = select(node, first);
+                visits.incrementAndGet(node);
+
+                path[depth] = node;
+                movers[depth] = player;
+                depth++;
+
+                play(moves[node], player);
+                player = 3 - player;
+                legal = MoveKernel.legalMoves(houses, player);
+
+                proof = solved.get(node);
+
+                if(proof == UNSOLVED && (legal == 0 || scores[1] > 24 ||
+                        scores[2] > 24)) {
+                    int winner = winner(player, legal);
+
+                    proof = winner == 0 ? SOLVED_DRAW :
+                            winner == movers[depth - 1] ? SOLVED_WIN :
+                            SOLVED_LOSS;
+
+                    if(solved.compareAndSet(node, UNSOLVED, proof)) {
+                        backUp(path, depth);
+                    }
+                }
+
+                if(proof != UNSOLVED) {
+                    break;
+                }
+            }
+
+            if(depth > maxDepth) {
+                maxDepth = depth;
+            }
+
+            int winner;
+
+            if(proof != UNSOLVED) {
+                int mover = movers[depth - 1];
+
+                winner = proof == SOLVED_WIN ? mover :
+                        proof == SOLVED_LOSS ? 3 - mover : 0;
+            }
+            else {
+                // Play random moves to the end of the game.
+                for(int ply = depth; ply < MAX_PLAYOUT_PLIES && legal != 0 &&
+                        scores[1] <= 24 && scores[2] <= 24; ply++) {
+                    play(randomMove(legal), player);
+                    player = 3 - player;
+                    legal = MoveKernel.legalMoves(houses, player);
+                }
+
+                winner = winner(player, legal);
+            }
+
+            for(int i = 0; i < depth; i++) {
+                int result = winner == 0 ? 1 : winner == movers[i] ? 2 : 0;
+
+                if(result != 0) {
+                    results.addAndGet(path[i], result);
+                }
+            }
+        }
+
+        private void play(int house, int player) {
+            int undo = MoveKernel.move(houses,
+                    MoveKernel.base(player) + house - 1, player);
+            scores[player] += MoveKernel.undoScore(undo);
+        }
+
+        /**
+         * The winner of the game as it stands, or 0 for a draw.
+         */
+        private int winner(int player, int legal) {
+            int score1 = scores[1];
+            int score2 = scores[2];
+
+            // A player who cannot move leaves the opponent their own seeds.
+            if(legal == 0) {
+                int side = MoveKernel.opponentBase(player);
+                int seeds = 0;
+
+                for(int i = side; i < side + 6; i++) {
+                    seeds += houses[i];
+                }
+
+                if(player == 1) {
+                    score2 += seeds;
+                }
+                else {
+                    score1 += seeds;
+                }
+            }
+
+            return score1 > score2 ? 1 : score2 > score1 ? 2 : 0;
+        }
+
+        /**
+         * A random house from a mask of legal moves, using xorshift.
+         */
+        private int randomMove(int legal) {
+            random ^= random << 13;
+            random ^= random >>> 7;
+            random ^= random << 17;
+
+            int pick = (int) (((random >>> 32) * Integer.bitCount(legal)) >>>
+                    32);
+
+            for(int i = 0; i < pick; i++) {
+                legal &= legal - 1;
+            }
+            return Integer.numberOfTrailingZeros(legal) + 1;
+        }
+    }
+}
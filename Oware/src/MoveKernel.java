@@ -0,0 +1,521 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+/**
+ * Table-driven sowing and capturing on a raw array of 12 houses.
+ *
+ * Houses are indexed as in {@link BoardImpl}: player 1's houses are 0..5 and
+ * player 2's houses are 6..11, in sowing order. For every start index and seed
+ * count the tables hold the number of full laps (each lap puts one seed in the
+ * 11 houses other than the origin) and the index of the house that receives
+ * the last seed. A move is then a handful of range increments with no
+ * allocation and no per-seed index arithmetic.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public final class MoveKernel {
+
+    /**
+     * Number of houses on the board.
+     */
+    public static final int HOUSES = 12;
+
+    /**
+     * Seed counts below this value are looked up in the tables, larger counts
+     * (which cannot occur in a normal game) are computed.
+     */
+    public static final int TABLE_SEEDS = 64;
+
+    /**
+     * A house holding at least this many seeds (a kroo) sows around the whole
+     * board.
+     */
+    public static final int KROO_SEEDS = 12;
+
+    /**
+     * The shift of each count in a packed set of house features: the number
+     * of player 1's and player 2's houses holding 1 or 2 seeds, then the
+     * number of their kroos. Each count takes 8 bits.
+     */
+    public static final int VULNERABLE_SHIFT = 0;
+
+    /**
+     * See {@link #VULNERABLE_SHIFT}.
+     */
+    public static final int KROO_SHIFT = 16;
+
+    private static final int SEED_BITS = 6;
+
+    private static final int SEEDS_SHIFT = 4;
+    private static final int COUNT_SHIFT = 20;
+    private static final int THREES_SHIFT = 23;
+
+    private static final byte[] LAPS = new byte[HOUSES * TABLE_SEEDS];
+    private static final byte[] LAST = new byte[HOUSES * TABLE_SEEDS];
+    private static final byte[] TARGET = new byte[HOUSES * TABLE_SEEDS];
+    private static final int[] FEATURES = new int[HOUSES * TABLE_SEEDS];
+
+    static {
+        for(int origin = 0; origin < HOUSES; origin++) {
+            for(int seeds = 0; seeds < TABLE_SEEDS; seeds++) {
+                int slot = origin << SEED_BITS | seeds;
+                LAPS[slot] = (byte) (seeds / 11);
+                LAST[slot] = (byte) computeLast(origin, seeds);
+                TARGET[slot] = seeds > 0 && LAST[slot] / 6 != origin / 6 ?
+                        LAST[slot] : -1;
+                FEATURES[slot] = computeFeatures(origin, seeds);
+            }
+        }
+    }
+
+    private MoveKernel() {
+    }
+
+    /**
+     * The number of full laps made when sowing a number of seeds.
+     *
+     * @param origin index of the house being emptied.
+     * @param seeds number of seeds in the house.
+     * @return the number of seeds every other house receives from full laps.
+     */
+    public static int laps(int origin, int seeds) {
+        if(seeds < TABLE_SEEDS) {
+            return LAPS[origin << SEED_BITS | seeds];
+        }
+        return seeds / 11;
+    }
+
+    /**
+     * The index of the house receiving the last seed when sowing.
+     *
+     * @param origin index of the house being emptied.
+     * @param seeds number of seeds in the house.
+     * @return the index of the last house sown, or origin if seeds is 0.
+     */
+    public static int last(int origin, int seeds) {
+        if(seeds < TABLE_SEEDS) {
+            return LAST[origin << SEED_BITS | seeds];
+        }
+        return computeLast(origin, seeds);
+    }
+
+    /**
+     * Whether a move from a house reaches the opponent's side of the board.
+     *
+     * @param house the house number for this player (1..6).
+     * @param seeds the number of seeds in the house.
+     * @return <code>true</code> if at least one seed is sown on the opponent's
+     * side.
+     */
+    public static boolean feeds(int house, int seeds) {
+        return seeds > 6 - house;
+    }
+
+    /**
+     * The number of seeds a move puts on the opponent's side of the board.
+     *
+     * @param origin index of the house being emptied.
+     * @param seeds number of seeds in the house.
+     * @return the seeds sown into the opponent's six houses.
+     */
+    public static int fed(int origin, int seeds) {
+        int laps = laps(origin, seeds);
+        int remainder = seeds - 11 * laps;
+
+        // Skip the rest of the mover's own houses, then count at most six.
+        int opponent = remainder - (5 - origin % 6);
+
+        if(opponent < 0) {
+            opponent = 0;
+        }
+        else if(opponent > 6) {
+            opponent = 6;
+        }
+        return 6 * laps + opponent;
+    }
+
+    /**
+     * The legal moves of a player, as {@link Board#getLegalMoves(int)
+     * getLegalMoves} reports them, for searches that play on a bare array.
+     *
+     * @param houses the 12 houses of the board.
+     * @param playerNum the player to move (1 or 2).
+     * @return bit (house - 1) set for every legal house.
+     */
+    public static int legalMoves(int[] houses, int playerNum) {
+        int base = base(playerNum);
+        int opponent = opponentBase(playerNum);
+        int nonEmpty = 0;
+        int feeding = 0;
+        int opponentSeeds = 0;
+
+        for(int i = 0; i < 6; i++) {
+            int seeds = houses[base + i];
+
+            if(seeds != 0) {
+                nonEmpty |= 1 << i;
+            }
+            if(feeds(i + 1, seeds)) {
+                feeding |= 1 << i;
+            }
+            opponentSeeds += houses[opponent + i];
+        }
+
+        // If no move feeds a starved opponent, any move may be played.
+        if(feeding != 0 && opponentSeeds == 0) {
+            return feeding;
+        }
+        return nonEmpty;
+    }
+
+    /**
+     * Whether sowing from a house ends in a capture: the last seed lands on
+     * an opponent's house that held 1 or 2 seeds before the last seed, which
+     * includes any seeds earlier laps put there. A table read and no sowing.
+     *
+     * @param houses the 12 houses of the board.
+     * @param origin index of the house to sow from.
+     * @return <code>true</code> if the move captures at least one house.
+     */
+    public static boolean captures(int[] houses, int origin) {
+        int seeds = houses[origin];
+
+        int target = seeds < TABLE_SEEDS ? TARGET[origin << SEED_BITS | seeds] :
+                computeLast(origin, seeds);
+
+        if(target < 0 || target / 6 == origin / 6) {
+            return false;
+        }
+
+        // Every 11 seeds before the last one put a seed in the target.
+        int before = houses[target] + (seeds - 1) / 11;
+        return before == 1 || before == 2;
+    }
+
+    /**
+     * The features of one house, packed as described at
+     * {@link #VULNERABLE_SHIFT}.
+     *
+     * @param index the index of the house.
+     * @param seeds the number of seeds in it.
+     * @return 1 in the count for the house's owner that it adds to, if any.
+     */
+    public static int houseFeatures(int index, int seeds) {
+        if(seeds < TABLE_SEEDS) {
+            return FEATURES[index << SEED_BITS | seeds];
+        }
+        return computeFeatures(index, seeds);
+    }
+
+    /**
+     * The packed features of the whole board.
+     *
+     * @param houses the 12 houses of the board.
+     * @return the counts described at {@link #VULNERABLE_SHIFT}.
+     */
+    public static int features(int[] houses) {
+        int features = 0;
+
+        for(int i = 0; i < HOUSES; i++) {
+            features += houseFeatures(i, houses[i]);
+        }
+        return features;
+    }
+
+    /**
+     * The packed features of the houses a move from origin changes: the
+     * origin and every house it sows into, which includes any it captures.
+     * Taking this before and after a move, or its undo, gives the change in
+     * the board's features without looking at the other houses.
+     *
+     * @param houses the 12 houses of the board.
+     * @param origin index of the house sown from.
+     * @param seeds number of seeds sown.
+     * @return the sum of the features of those houses as they are now.
+     */
+    public static int sownFeatures(int[] houses, int origin, int seeds) {
+        int count = Math.min(seeds + 1, HOUSES);
+        int index = origin;
+        int features = 0;
+
+        for(int i = 0; i < count; i++) {
+            features += houseFeatures(index, houses[index]);
+            index = index == HOUSES - 1 ? 0 : index + 1;
+        }
+        return features;
+    }
+
+    /**
+     * Unpacks one count from a set of house features.
+     *
+     * @param features packed features.
+     * @param shift {@link #VULNERABLE_SHIFT} or {@link #KROO_SHIFT}.
+     * @param playerNum the player whose houses are counted (1 or 2).
+     * @return the count.
+     */
+    public static int featureCount(int features, int shift, int playerNum) {
+        return (features >>> (shift + 8 * (playerNum - 1))) & 0xFF;
+    }
+
+    /**
+     * Empties a house and sows its seeds anticlockwise, skipping the origin.
+     *
+     * @param houses the 12 houses of the board.
+     * @param origin index of the house to sow from.
+     * @return the index of the house that received the last seed.
+     */
+    public static int sow(int[] houses, int origin) {
+        int seeds = houses[origin];
+        houses[origin] = 0;
+
+        spread(houses, origin, seeds, 1);
+
+        return last(origin, seeds);
+    }
+
+    /**
+     * Adds (or with a delta of -1, removes) the seeds that sowing from origin
+     * puts in every house other than the origin.
+     */
+    private static void spread(int[] houses, int origin, int seeds,
+            int delta) {
+        int laps = laps(origin, seeds);
+
+        if(laps > 0) {
+            int lapSeeds = laps * delta;
+
+            for(int i = 0; i < HOUSES; i++) {
+                houses[i] += lapSeeds;
+            }
+            houses[origin] -= lapSeeds;
+        }
+
+        // The remainder never reaches back to the origin, so it is at most
+        // two contiguous ranges: up to the end of the array, then from 0.
+        int end = origin + seeds - 11 * laps;
+        int wrapped = end - (HOUSES - 1);
+
+        if(wrapped > 0) {
+            end = HOUSES - 1;
+        }
+        for(int i = origin + 1; i <= end; i++) {
+            houses[i] += delta;
+        }
+        for(int i = 0; i < wrapped; i++) {
+            houses[i] += delta;
+        }
+    }
+
+    /**
+     * Captures houses of 2 or 3 seeds, walking backwards from the last house
+     * sown while it is on the opponent's side.
+     *
+     * @param houses the 12 houses of the board.
+     * @param last index of the house that received the last seed.
+     * @param playerNum the player who made the move (1 or 2).
+     * @return the number of seeds captured.
+     */
+    public static int capture(int[] houses, int last, int playerNum) {
+        int first = opponentBase(playerNum);
+
+        if(last < first || last >= first + 6) {
+            return 0;
+        }
+
+        int captured = 0;
+
+        for(int i = last; i >= first; i--) {
+            int seeds = houses[i];
+
+            if(seeds != 2 && seeds != 3) {
+                break;
+            }
+
+            captured += seeds;
+            houses[i] = 0;
+        }
+
+        return captured;
+    }
+
+    /**
+     * Sows from origin and captures, returning a record from which
+     * {@link #unmove(int[], int) unmove} restores the houses exactly.
+     *
+     * The record holds the origin index, the number of seeds sown, how many
+     * houses were captured and whether each of them held 2 or 3 seeds.
+     *
+     * @param houses the 12 houses of the board.
+     * @param origin index of the house to sow from.
+     * @param playerNum the player making the move (1 or 2).
+     * @return the undo record of the move.
+     */
+    public static int move(int[] houses, int origin, int playerNum) {
+        int seeds = houses[origin];
+        int last = sow(houses, origin);
+
+        int first = opponentBase(playerNum);
+        int count = 0;
+        int threes = 0;
+
+        if(last >= first && last < first + 6) {
+            for(int i = last; i >= first; i--) {
+                int captured = houses[i];
+
+                if(captured != 2 && captured != 3) {
+                    break;
+                }
+
+                threes |= (captured - 2) << count;
+                count++;
+                houses[i] = 0;
+            }
+        }
+
+        return encodeUndo(origin, seeds, count, threes);
+    }
+
+    /**
+     * Reverses a move made with {@link #move(int[], int, int) move}.
+     *
+     * @param houses the 12 houses of the board after the move.
+     * @param undo the record returned by the move.
+     */
+    public static void unmove(int[] houses, int undo) {
+        int origin = undoOrigin(undo);
+        int seeds = undoSeeds(undo);
+        int last = last(origin, seeds);
+        int count = undoCaptures(undo);
+        int threes = undoThrees(undo);
+
+        for(int k = 0; k < count; k++) {
+            houses[last - k] = 2 + ((threes >>> k) & 1);
+        }
+
+        spread(houses, origin, seeds, -1);
+        houses[origin] = seeds;
+    }
+
+    /**
+     * Packs a move into an undo record. Seed counts are limited to 16 bits.
+     *
+     * @param origin index of the house sown from.
+     * @param seeds number of seeds sown.
+     * @param count number of houses captured.
+     * @param threes bit k set if the k-th house captured (walking backwards
+     * from the last house sown) held 3 seeds rather than 2.
+     * @return the undo record.
+     */
+    public static int encodeUndo(int origin, int seeds, int count,
+            int threes) {
+        return origin | seeds << SEEDS_SHIFT | count << COUNT_SHIFT |
+                threes << THREES_SHIFT;
+    }
+
+    /**
+     * @param undo an undo record.
+     * @return the index of the house the move was made from.
+     */
+    public static int undoOrigin(int undo) {
+        return undo & 0xF;
+    }
+
+    /**
+     * @param undo an undo record.
+     * @return the number of seeds sown by the move.
+     */
+    public static int undoSeeds(int undo) {
+        return (undo >>> SEEDS_SHIFT) & 0xFFFF;
+    }
+
+    /**
+     * @param undo an undo record.
+     * @return the number of houses captured by the move.
+     */
+    public static int undoCaptures(int undo) {
+        return (undo >>> COUNT_SHIFT) & 0x7;
+    }
+
+    /**
+     * @param undo an undo record.
+     * @return bit k is set if the k-th house captured, walking backwards from
+     * the last house sown, held 3 seeds rather than 2.
+     */
+    public static int undoThrees(int undo) {
+        return undo >>> THREES_SHIFT;
+    }
+
+    /**
+     * @param undo an undo record.
+     * @return the number of seeds the move added to the mover's score.
+     */
+    public static int undoScore(int undo) {
+        return 2 * undoCaptures(undo) + Integer.bitCount(undoThrees(undo));
+    }
+
+    /**
+     * @param undo an undo record.
+     * @return the number of the player who made the move.
+     */
+    public static int undoPlayer(int undo) {
+        return undoOrigin(undo) < 6 ? 1 : 2;
+    }
+
+    /**
+     * The index of a player's first house.
+     *
+     * @param playerNum the player's number (1 or 2).
+     * @return 0 for player 1 and 6 for player 2.
+     */
+    public static int base(int playerNum) {
+        return (playerNum - 1) * 6;
+    }
+
+    /**
+     * The index of the first house of a player's opponent.
+     *
+     * @param playerNum the player's number (1 or 2).
+     * @return 6 for player 1 and 0 for player 2.
+     */
+    public static int opponentBase(int playerNum) {
+        return (2 - playerNum) * 6;
+    }
+
+    private static int computeFeatures(int index, int seeds) {
+        int owner = 8 * (index / 6);
+
+        if(seeds == 1 || seeds == 2) {
+            return 1 << (VULNERABLE_SHIFT + owner);
+        }
+        else if(seeds >= KROO_SEEDS) {
+            return 1 << (KROO_SHIFT + owner);
+        }
+        return 0;
+    }
+
+    private static int computeLast(int origin, int seeds) {
+        if(seeds == 0) {
+            return origin;
+        }
+
+        // Every 11 seeds bring the sowing back to the house before the origin.
+        int steps = (seeds - 1) % 11 + 1;
+        return (origin + steps) % HOUSES;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The history of a game, stored as one byte per ply.
+ *
+ * Each ply records the house moved from and whether the move captured. The
+ * position key before every ply is kept alongside, and a copy of the board is
+ * kept every {@link #CHECKPOINT_INTERVAL} plies. Any earlier board is rebuilt
+ * by replaying at most that many moves from the nearest checkpoint.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class MoveLog implements Serializable {
+
+    /**
+     * Number of plies between stored copies of the board.
+     */
+    public static final int CHECKPOINT_INTERVAL = 32;
+
+    private static final int HOUSE_MASK = 0x7;
+    private static final int CAPTURE_FLAG = 0x80;
+
+    private final int firstPlayer;
+    private byte[] moves;
+    private long[] keys;
+    private int size;
+    private List<Board> checkpoints;
+
+    /**
+     * Constructor for the MoveLog class.
+     *
+     * @param initialBoard the board before the first move. A copy is kept.
+     * @param firstPlayer the player to make the first move (1 or 2).
+     */
+    public MoveLog(Board initialBoard, int firstPlayer) {
+        this.firstPlayer = firstPlayer;
+        moves = new byte[64];
+        keys = new long[64];
+        size = 0;
+        checkpoints = new ArrayList<>();
+        checkpoints.add(initialBoard.clone());
+    }
+
+    /**
+     * Records a move that has just been made.
+     *
+     * @param house the house moved from (1..6).
+     * @param capture whether the move captured any seeds.
+     * @param keyBefore the position key before the move.
+     * @param boardAfter the board after the move, copied if a checkpoint is
+     * due.
+     */
+    public void record(int house, boolean capture, long keyBefore,
+            Board boardAfter) {
+        if(size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+
+        moves[size] = (byte) (house | (capture ? CAPTURE_FLAG : 0));
+        keys[size] = keyBefore;
+        size++;
+
+        if(size % CHECKPOINT_INTERVAL == 0) {
+            checkpoints.add(boardAfter.clone());
+        }
+    }
+
+    /**
+     * Discards every ply from the given one onwards, so that a different move
+     * can be recorded there.
+     *
+     * @param ply the number of plies to keep.
+     */
+    public void truncate(int ply) {
+        checkPly(ply, size);
+
+        size = ply;
+
+        int keep = ply / CHECKPOINT_INTERVAL + 1;
+
+        while(checkpoints.size() > keep) {
+            checkpoints.remove(checkpoints.size() - 1);
+        }
+    }
+
+    /**
+     * @return the number of plies recorded.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param ply the ply, counting from 0.
+     * @return the house moved from at that ply.
+     */
+    public int getMove(int ply) {
+        checkPly(ply, size - 1);
+        return moves[ply] & HOUSE_MASK;
+    }
+
+    /**
+     * @param ply the ply, counting from 0.
+     * @return <code>true</code> if the move at that ply captured seeds.
+     */
+    public boolean isCapture(int ply) {
+        checkPly(ply, size - 1);
+        return (moves[ply] & CAPTURE_FLAG) != 0;
+    }
+
+    /**
+     * @param ply the ply, counting from 0.
+     * @return the position key before the move at that ply.
+     */
+    public long getKey(int ply) {
+        checkPly(ply, size - 1);
+        return keys[ply];
+    }
+
+    /**
+     * @param ply the ply, counting from 0.
+     * @return the number of the player who moves at that ply.
+     */
+    public int getPlayer(int ply) {
+        return ply % 2 == 0 ? firstPlayer : 3 - firstPlayer;
+    }
+
+    /**
+     * Rebuilds the board as it was before a ply.
+     *
+     * @param ply the ply, from 0 (the initial board) to {@link #size()} (the
+     * board after the last recorded move).
+     * @return a new board in that position.
+     */
+    public Board getBoard(int ply) {
+        checkPly(ply, size);
+
+        int checkpoint = ply / CHECKPOINT_INTERVAL;
+        Board board = checkpoints.get(checkpoint).clone();
+
+        for(int i = checkpoint * CHECKPOINT_INTERVAL; i < ply; i++) {
+            MoveResult result = board.tryMove(getMove(i), getPlayer(i));
+
+            if(result != MoveResult.OK) {
+                throw new IllegalStateException("Move log is corrupt at ply " +
+                        i + ": " + result.getMessage());
+            }
+        }
+        return board;
+    }
+
+    private void checkPly(int ply, int max) {
+        if(ply < 0 || ply > max) {
+            throw new IndexOutOfBoundsException("Ply " + ply + " is not in " +
+                    "the range 0.." + max);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+/**
+ * The outcome of {@link Board#tryMove(int, int) tryMove}.
+ *
+ * Engines and random players test millions of candidate moves, so the board
+ * reports why a move was rejected with one of these constants rather than
+ * building an exception.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public enum MoveResult {
+
+    /** The move was played. */
+    OK(null),
+
+    /** The selected house contains no seeds. */
+    EMPTY_HOUSE("Invalid input - The selected house contains no seeds."),
+
+    /** The move would leave the opponent without seeds when it need not. */
+    STARVATION("Invalid input - It is forbidden to starve your opponent."),
+
+    /** The house or player number is out of range. */
+    OUT_OF_RANGE("Invalid input - House number out of range. Please enter " +
+            "a value from 1 to 6 (inclusive).");
+
+    private final String message;
+
+    private MoveResult(String message) {
+        this.message = message;
+    }
+
+    /**
+     * A message describing why the move was rejected.
+     *
+     * @return the message, or <code>null</code> for {@link #OK}.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Throws the exception {@link Board#makeMove(int, int) makeMove} has
+     * always thrown for this result. Does nothing for {@link #OK}.
+     *
+     * @throws InvalidHouseException for {@link #OUT_OF_RANGE}.
+     * @throws InvalidMoveException for {@link #EMPTY_HOUSE} and
+     * {@link #STARVATION}.
+     */
+    public void raise() throws InvalidHouseException, InvalidMoveException {
+        if(this == OUT_OF_RANGE) {
+            throw new InvalidHouseException(message);
+        }
+        else if(this != OK) {
+            throw new InvalidMoveException(message);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+/**
+ * A way of choosing a move by searching ahead, used by {@link ComputerPlayer}.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public interface MoveSearch {
+
+    /**
+     * Searches for the best move until the deadline.
+     *
+     * @param position the position to search. It is not changed.
+     * @param playerNum the player to move (1 or 2).
+     * @param deadline the value of System.nanoTime() by which to return.
+     * @return the house to move from (1..6).
+     */
+    int search(Board position, int playerNum, long deadline);
+
+    /**
+     * @return the number of positions visited by the last search.
+     */
+    long getNodes();
+
+    /**
+     * @return the deepest iteration the last search completed.
+     */
+    int getCompletedDepth();
+
+    /**
+     * @return the score of the move returned by the last search, from the
+     * point of view of the player to move.
+     */
+    int getBestScore();
+
+    /**
+     * Stops any threads the search uses. The search cannot be used
+     * afterwards.
+     */
+    void shutdown();
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An opening book read from a memory-mapped file.
+ *
+ * The file is a table of 16-byte records, each a position key, a move and
+ * a weight, sorted by key and then move, after an 8-byte header. A position
+ * is looked up by binary search on the key, so a book move costs a few
+ * reads of the mapped file and no search. The file is written by
+ * {@link BookBuilder}.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class OpeningBook {
+
+    /**
+     * The system property giving the path of the book file.
+     */
+    public static final String FILE_PROPERTY = "oware.book";
+
+    static final int MAGIC = 0x4F57424B;
+    static final int HEADER_BYTES = 8;
+    static final int RECORD_BYTES = 16;
+
+    private static final Logger LOGGER =
+            Logger.getLogger(OpeningBook.class.getName());
+
+    private static OpeningBook defaultBook;
+    private static boolean defaultLoaded;
+
+    private final MappedByteBuffer buffer;
+    private final int size;
+
+    /**
+     * Constructor for OpeningBook class, mapping a book file.
+     *
+     * @param file the file written by {@link BookBuilder}.
+     * @throws IOException if the file cannot be read or is not a book.
+     */
+    public OpeningBook(File file) throws IOException {
+        try(RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            FileChannel channel = in.getChannel();
+
+            if(channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map.");
+            }
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+
+        if(buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not an opening book.");
+        }
+
+        size = buffer.getInt(4);
+
+        if(size < 0 || buffer.capacity() !=
+                HEADER_BYTES + (long) size * RECORD_BYTES) {
+            throw new IOException(file + " has the wrong length for an " +
+                    "opening book.");
+        }
+    }
+
+    /**
+     * The book named by the {@link #FILE_PROPERTY} system property, mapped on
+     * first use.
+     *
+     * @return the book, or <code>null</code> if the property is not set or
+     * the file cannot be mapped.
+     */
+    public static synchronized OpeningBook getDefault() {
+        if(!defaultLoaded) {
+            defaultLoaded = true;
+            String path = System.getProperty(FILE_PROPERTY);
+
+            if(path != null) {
+                try {
+                    defaultBook = new OpeningBook(new File(path));
+                }
+                catch(IOException ex) {
+                    LOGGER.log(Level.WARNING, "Opening book not loaded", ex);
+                }
+            }
+        }
+        return defaultBook;
+    }
+
+    /**
+     * @return the number of records in the book.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the book move for a position.
+     *
+     * @param key the {@link Board#getPositionKey(int) position key} with the
+     * player to move.
+     * @return the house (1..6) of the position's record with the greatest
+     * weight, or 0 if the position is not in the book.
+     */
+    public int lookup(long key) {
+        int best = 0;
+        int bestWeight = Integer.MIN_VALUE;
+
+        for(int i = firstRecord(key); i < size && keyAt(i) == key; i++) {
+            int weight = buffer.getInt(offset(i) + 12);
+
+            if(weight > bestWeight) {
+                bestWeight = weight;
+                best = buffer.getInt(offset(i) + 8);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The index of the first record whose key is not less than the given
+     * key.
+     */
+    private int firstRecord(long key) {
+        int low = 0;
+        int high = size;
+
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+
+            if(keyAt(middle) < key) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return buffer.getLong(offset(index));
+    }
+
+    private static int offset(int index) {
+        return HEADER_BYTES + index * RECORD_BYTES;
+    }
+}
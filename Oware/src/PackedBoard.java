@@ -0,0 +1,425 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.io.Serializable;
+
+/**
+ * A compact representation of the Oware board held in two primitive longs.
+ *
+ * Each player owns one word. The six houses of that player occupy the low 36
+ * bits of the word (6 bits per house, house 1 in the lowest bits), and the
+ * player's score occupies the remaining 28 bits. Six bits hold up to 63 seeds,
+ * which is more than the 48 seeds in play.
+ *
+ * Sowing whole laps and capturing are done on the words directly, so cloning a
+ * board is a copy of two longs and no arrays are allocated during play.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class PackedBoard implements Board, Serializable {
+
+    private static final int HOUSE_BITS = 6;
+    private static final long HOUSE_MASK = (1L << HOUSE_BITS) - 1;
+    private static final int SCORE_SHIFT = 6 * HOUSE_BITS;
+    private static final long HOUSES_MASK = (1L << SCORE_SHIFT) - 1;
+    private static final long MAX_SCORE = (1L << (64 - SCORE_SHIFT)) - 1;
+
+    // Houses 1, 3 and 5 of a word.
+    private static final long PAIR_MASK = 0x03F03F03FL;
+
+    // One seed in every house of a word.
+    private static final long ONE_EACH = 0x41041041L;
+
+    // ONES[n] has one seed in each of the first n houses of a word.
+    private static final long[] ONES = new long[7];
+
+    static {
+        for(int i = 1; i < 7; i++) {
+            ONES[i] = ONES[i - 1] | (1L << (HOUSE_BITS * (i - 1)));
+        }
+    }
+
+    private long p1Word;
+    private long p2Word;
+
+    /**
+     * Default constructor for PackedBoard class.
+     */
+    public PackedBoard() {
+
+        //Set up 4 counters in each house
+        p1Word = 4 * ONE_EACH;
+        p2Word = 4 * ONE_EACH;
+    }
+
+    private PackedBoard(long p1Word, long p2Word) {
+        this.p1Word = p1Word;
+        this.p2Word = p2Word;
+    }
+
+    @Override
+    public void makeMove(int house, int playerNum) throws InvalidHouseException,
+            InvalidMoveException {
+        makeUndoableMove(house, playerNum);
+    }
+
+    @Override
+    public MoveResult tryMove(int house, int playerNum) {
+        MoveResult result = checkLegalMove(house, playerNum);
+
+        if(result == MoveResult.OK) {
+            play(house, playerNum);
+        }
+        return result;
+    }
+
+    @Override
+    public int makeUndoableMove(int house, int playerNum) throws
+            InvalidHouseException, InvalidMoveException {
+
+        // Check house number and player number are valid.
+        checkInvalidHouse(house, playerNum);
+
+        checkLegalMove(house, playerNum).raise();
+
+        return play(house, playerNum);
+    }
+
+    /**
+     * Checks the conditions for a legal move.
+     *
+     * @return {@link MoveResult#OK} if the move is legal, otherwise the
+     * reason it is not.
+     */
+    private MoveResult checkLegalMove(int house, int playerNum) {
+        if(!(playerNum < 3 && playerNum > 0) || !(house < 7 && house > 0)) {
+            return MoveResult.OUT_OF_RANGE;
+        }
+
+        if(field(getWord(playerNum), house) == 0) {
+            return MoveResult.EMPTY_HOUSE;
+        }
+
+        // If the opponent's houses are all empty, only moves that put seeds
+        // on their side are legal (if there are any).
+        if((getLegalMoves(playerNum) & (1 << (house - 1))) == 0) {
+            return MoveResult.STARVATION;
+        }
+
+        return MoveResult.OK;
+    }
+
+    /**
+     * Plays a move that has already been checked.
+     *
+     * @return the undo record of the move.
+     */
+    private int play(int house, int playerNum) {
+        long own = getWord(playerNum);
+        int seeds = field(own, house);
+
+        setWord(own & ~(HOUSE_MASK << (HOUSE_BITS * (house - 1))), playerNum);
+        spread(house, playerNum, seeds, 1);
+
+        int origin = MoveKernel.base(playerNum) + house - 1;
+        int last = MoveKernel.last(origin, seeds);
+
+        // Reap seeds.
+        int count = 0;
+        int threes = 0;
+
+        if(last >= MoveKernel.opponentBase(playerNum) &&
+                last < MoveKernel.opponentBase(playerNum) + 6) {
+            long opponent = getWord(3 - playerNum);
+
+            for(int lastHouse = last % 6 + 1; lastHouse > 0; lastHouse--) {
+                int captured = field(opponent, lastHouse);
+
+                if(captured != 2 && captured != 3) {
+                    break;
+                }
+
+                threes |= (captured - 2) << count;
+                count++;
+                opponent &= ~(HOUSE_MASK << (HOUSE_BITS * (lastHouse - 1)));
+            }
+
+            setWord(opponent, 3 - playerNum);
+        }
+
+        int undo = MoveKernel.encodeUndo(origin, seeds, count, threes);
+        addScore(MoveKernel.undoScore(undo), playerNum);
+
+        return undo;
+    }
+
+    @Override
+    public void unmakeMove(int undo) {
+        int origin = MoveKernel.undoOrigin(undo);
+        int seeds = MoveKernel.undoSeeds(undo);
+        int playerNum = MoveKernel.undoPlayer(undo);
+        int house = origin % 6 + 1;
+
+        addScore(-MoveKernel.undoScore(undo), playerNum);
+
+        // Put the captured seeds back, walking backwards from the last house.
+        long opponent = getWord(3 - playerNum);
+        int lastHouse = MoveKernel.last(origin, seeds) % 6 + 1;
+        int threes = MoveKernel.undoThrees(undo);
+
+        for(int k = 0; k < MoveKernel.undoCaptures(undo); k++) {
+            long captured = 2 + ((threes >>> k) & 1);
+            opponent |= captured << (HOUSE_BITS * (lastHouse - 1 - k));
+        }
+
+        setWord(opponent, 3 - playerNum);
+        spread(house, playerNum, seeds, -1);
+
+        long own = getWord(playerNum);
+        setWord(own | ((long) seeds << (HOUSE_BITS * (house - 1))), playerNum);
+    }
+
+    @Override
+    public int getLegalMoves(int playerNum) {
+        long own = getWord(playerNum);
+        int nonEmpty = 0;
+        int feeding = 0;
+
+        for(int i = 1; i < 7; i++) {
+            int seeds = field(own, i);
+
+            if(seeds != 0) {
+                nonEmpty |= 1 << (i - 1);
+            }
+            if(MoveKernel.feeds(i, seeds)) {
+                feeding |= 1 << (i - 1);
+            }
+        }
+
+        // If no move feeds a starved opponent, any move may be played.
+        if(feeding != 0 && (getWord(3 - playerNum) & HOUSES_MASK) == 0) {
+            return feeding;
+        }
+        return nonEmpty;
+    }
+
+    /**
+     * Adds (or with a sign of -1, removes) the seeds that sowing from a house
+     * puts in every other house.
+     */
+    private void spread(int house, int playerNum, int seeds, int sign) {
+        long own = 0;
+        long opponent = 0;
+
+        int shift = HOUSE_BITS * (house - 1);
+
+        // Every full lap puts one seed in each of the other 11 houses.
+        int laps = seeds / 11;
+        int remainder = seeds % 11;
+
+        if(laps > 0) {
+            own += laps * (ONE_EACH - (1L << shift));
+            opponent += laps * ONE_EACH;
+        }
+
+        // Sow the remainder: the rest of our houses, then the opponent's,
+        // then round to our own first houses. The origin is never reached.
+        int ownAfter = Math.min(remainder, 6 - house);
+        own += ONES[ownAfter] << (shift + HOUSE_BITS);
+        remainder -= ownAfter;
+
+        int opponentCount = Math.min(remainder, 6);
+        opponent += ONES[opponentCount];
+        remainder -= opponentCount;
+
+        own += ONES[remainder];
+
+        setWord(getWord(playerNum) + sign * own, playerNum);
+        setWord(getWord(3 - playerNum) + sign * opponent, 3 - playerNum);
+    }
+
+    @Override
+    public int getSeeds(int house, int playerNum) throws InvalidHouseException {
+        checkInvalidHouse(house, playerNum);
+        return field(getWord(playerNum), house);
+    }
+
+    @Override
+    public void getHouses(int[] houses) {
+        for(int i = 0; i < 6; i++) {
+            houses[i] = field(p1Word, i + 1);
+            houses[i + 6] = field(p2Word, i + 1);
+        }
+    }
+
+    @Override
+    public int getSideSeeds(int playerNum) {
+
+        // Add the houses in pairs into three 12-bit sums, then add those.
+        long word = getWord(playerNum);
+        long pairs = (word & PAIR_MASK) + ((word >>> HOUSE_BITS) & PAIR_MASK);
+        return (int) ((pairs & 0xFFF) + ((pairs >>> 12) & 0xFFF) +
+                ((pairs >>> 24) & 0xFFF));
+    }
+
+    @Override
+    public void sowSeed(int house, int playerNum) throws InvalidHouseException {
+        setSeeds(getSeeds(house, playerNum) + 1, house, playerNum);
+    }
+
+    @Override
+    public void setSeeds(int seeds, int house, int playerNum) throws
+            InvalidHouseException {
+        checkInvalidHouse(house, playerNum);
+
+        if(seeds < 0 || seeds > HOUSE_MASK) {
+            throw new IllegalArgumentException("seeds should be in the range " +
+                    "0.." + HOUSE_MASK);
+        }
+
+        int shift = HOUSE_BITS * (house - 1);
+        long word = getWord(playerNum) & ~(HOUSE_MASK << shift);
+        setWord(word | ((long) seeds << shift), playerNum);
+    }
+
+    @Override
+    public int getScore(int playerNum) {
+        return (int) (getWord(playerNum) >>> SCORE_SHIFT);
+    }
+
+    @Override
+    public void addScore(int seeds, int playerNum) {
+        setScore(getScore(playerNum) + seeds, playerNum);
+    }
+
+    @Override
+    public void setScore(int seeds, int playerNum) {
+        if(seeds < 0 || seeds > MAX_SCORE) {
+            throw new IllegalArgumentException("score should be in the range " +
+                    "0.." + MAX_SCORE);
+        }
+
+        long word = getWord(playerNum) & HOUSES_MASK;
+        setWord(word | ((long) seeds << SCORE_SHIFT), playerNum);
+    }
+
+    @Override
+    public long getPositionKey(int playerToMove) {
+        long key = Zobrist.score(1, getScore(1)) ^
+                Zobrist.score(2, getScore(2)) ^ Zobrist.side(playerToMove);
+
+        for(int i = 0; i < 6; i++) {
+            key ^= Zobrist.house(i, field(p1Word, i + 1)) ^
+                    Zobrist.house(i + 6, field(p2Word, i + 1));
+        }
+        return key;
+    }
+
+    @Override
+    public Board clone() {
+        return new PackedBoard(p1Word, p2Word);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder();
+
+        // SeedNumber(House i) : PlayerNumber PlayerScore
+        for(int i = 1; i < 7; i++) {
+            description.append(field(p1Word, i)).append(' ');
+        }
+        for(int i = 1; i < 7; i++) {
+            description.append(field(p2Word, i)).append(' ');
+        }
+
+        description.append(": 1 ").append(getScore(1)).append(" 2 ")
+                .append(getScore(2));
+        return description.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        long houses = (p1Word & HOUSES_MASK) ^
+                ((p2Word & HOUSES_MASK) * 0x9E3779B97F4A7C15L);
+        return (int) (houses ^ (houses >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        obj = ReadOnlyBoard.unwrap(obj);
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+
+        // Like BoardImpl, only the houses take part in equality.
+        final PackedBoard other = (PackedBoard) obj;
+        return ((p1Word ^ other.p1Word) & HOUSES_MASK) == 0 &&
+                ((p2Word ^ other.p2Word) & HOUSES_MASK) == 0;
+    }
+
+    private long getWord(int playerNum) {
+        if(playerNum == 1) {
+            return p1Word;
+        }
+        else if(playerNum == 2) {
+            return p2Word;
+        }
+        else {
+            throw new IllegalArgumentException("playerNum should be 1 or 2");
+        }
+    }
+
+    private void setWord(long word, int playerNum) {
+        if(playerNum == 1) {
+            p1Word = word;
+        }
+        else {
+            p2Word = word;
+        }
+    }
+
+    private static int field(long word, int house) {
+        return (int) ((word >>> (HOUSE_BITS * (house - 1))) & HOUSE_MASK);
+    }
+
+    /**
+     * Utility method to check if a given house and player number will fly.
+     *
+     * @param house the house to be checked
+     * @param playerNum the playerNumber to be checked
+     *
+     * @throws InvalidHouseException If either house or player numbers are
+     * incorrect.
+     */
+    private void checkInvalidHouse(int house, int playerNum) throws
+            InvalidHouseException {
+        if(!(playerNum < 3 && playerNum > 0)) {
+            throw new InvalidHouseException("Invalid input - Player number " +
+                    "out of range");
+        }
+        if(!(house < 7 && house > 0)) {
+            throw new InvalidHouseException("Invalid input - House number " +
+                    "out of range. Please enter a value from 1 to 6 " +
+                    "(inclusive).");
+        }
+    }
+}
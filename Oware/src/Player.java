@@ -21,7 +21,7 @@ public interface Player
      *
      * Computer player moves should take less than one second to complete the getMove method or they forfeit the game.
      *
-     * @param b An copy of the game that the player may experiment with. It should be a copy of the game so that the computer cannot cheat and experiments do not affect game play.
+     * @param b A read-only view of the game board, so that the computer cannot cheat. Mutating it throws UnsupportedOperationException; call {@link Board#clone clone()} for a copy the player may experiment with without affecting game play.
      *
      * @param playerNum
      * the number of the player: 1 or 2.
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Searches on the opponent's time.
+ *
+ * After a player moves, the ponderer searches the position the opponent has
+ * to move from on a background thread, with its own {@link SearchEngine} and
+ * the player's {@link TranspositionTable}. It deepens until it is stopped,
+ * so when the opponent replies the table already holds results for the
+ * positions after the likely replies, and the player's own search of the
+ * real position starts from them.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class Ponderer {
+
+    private final SearchEngine engine;
+    private final AtomicBoolean stopSignal;
+    private final ExecutorService thread;
+
+    private Future<?> running;
+
+    /**
+     * Constructor for Ponderer class.
+     *
+     * @param table the transposition table of the player's search.
+     */
+    public Ponderer(TranspositionTable table) {
+        stopSignal = new AtomicBoolean();
+        engine = new SearchEngine(table, 0, stopSignal);
+        thread = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "oware-ponder");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Starts searching the opponent's position, unless the game is over.
+     *
+     * @param position the position after the player's move. It is copied.
+     * @param opponent the player to move in the position (1 or 2).
+     */
+    public synchronized void start(Board position, final int opponent) {
+        stop();
+
+        final Board copy = new BoardImpl(position);
+
+        if(copy.getScore(1) > 24 || copy.getScore(2) > 24 ||
+                copy.getLegalMoves(opponent) == 0) {
+            return;
+        }
+
+        stopSignal.set(false);
+        running = thread.submit(new Runnable() {
+            @Override
+            public void run() {
+                engine.search(copy, opponent, Long.MAX_VALUE);
+            }
+        });
+    }
+
+    /**
+     * Stops searching and waits for the search thread to finish, so the
+     * table can be used by another search.
+     *
+     * @return the number of positions searched since the last start, or 0 if
+     * there was no search.
+     */
+    public synchronized long stop() {
+        if(running == null) {
+            return 0;
+        }
+
+        stopSignal.set(true);
+        boolean interrupted = false;
+
+        while(true) {
+            try {
+                running.get();
+                break;
+            }
+            catch(InterruptedException ex) {
+                interrupted = true;
+            }
+            catch(ExecutionException ex) {
+                throw new IllegalStateException("Pondering failed",
+                        ex.getCause());
+            }
+        }
+
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        running = null;
+        return engine.getNodes();
+    }
+
+    /**
+     * @return <code>true</code> if a search is running.
+     */
+    public synchronized boolean isPondering() {
+        return running != null && !running.isDone();
+    }
+
+    /**
+     * Stops searching and ends the search thread. The ponderer cannot be
+     * used afterwards.
+     */
+    public synchronized void shutdown() {
+        stop();
+        thread.shutdownNow();
+    }
+}
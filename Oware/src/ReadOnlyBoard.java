@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.io.Serializable;
+
+/**
+ * A read-only view of a board, given to players in place of a copy.
+ *
+ * Reads are passed through to the game's board and every mutator throws
+ * UnsupportedOperationException, so a player cannot change the game. A player
+ * that wants to experiment calls {@link #clone()}, which returns an ordinary
+ * mutable copy of the board.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public final class ReadOnlyBoard implements Board, Serializable {
+
+    private final Board board;
+
+    /**
+     * Constructor for the ReadOnlyBoard class.
+     *
+     * @param board the board to view.
+     */
+    public ReadOnlyBoard(Board board) {
+        this.board = board;
+    }
+
+    @Override
+    public void makeMove(int house, int playerNum) {
+        throw readOnly();
+    }
+
+    @Override
+    public MoveResult tryMove(int house, int playerNum) {
+        throw readOnly();
+    }
+
+    @Override
+    public int makeUndoableMove(int house, int playerNum) {
+        throw readOnly();
+    }
+
+    @Override
+    public void unmakeMove(int undo) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getLegalMoves(int playerNum) {
+        return board.getLegalMoves(playerNum);
+    }
+
+    @Override
+    public int getSeeds(int house, int playerNum) throws InvalidHouseException {
+        return board.getSeeds(house, playerNum);
+    }
+
+    @Override
+    public void getHouses(int[] houses) {
+        board.getHouses(houses);
+    }
+
+    @Override
+    public int getSideSeeds(int playerNum) {
+        return board.getSideSeeds(playerNum);
+    }
+
+    @Override
+    public void sowSeed(int house, int playerNum) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setSeeds(int seeds, int house, int playerNum) {
+        throw readOnly();
+    }
+
+    @Override
+    public int getScore(int playerNum) {
+        return board.getScore(playerNum);
+    }
+
+    @Override
+    public void addScore(int seeds, int playerNum) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setScore(int seeds, int playerNum) {
+        throw readOnly();
+    }
+
+    @Override
+    public long getPositionKey(int playerToMove) {
+        return board.getPositionKey(playerToMove);
+    }
+
+    /**
+     * Copies the viewed board.
+     *
+     * @return a mutable copy that does not affect the game.
+     */
+    @Override
+    public Board clone() {
+        return board.clone();
+    }
+
+    @Override
+    public String toString() {
+        return board.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return board.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return board.equals(unwrap(obj));
+    }
+
+    /**
+     * Gives the board behind a view. Boards compare themselves with the board
+     * behind a view, so that a view and its board are equal both ways round.
+     *
+     * @param obj any object.
+     * @return the viewed board if obj is a view, otherwise obj itself.
+     */
+    static Object unwrap(Object obj) {
+        while(obj instanceof ReadOnlyBoard) {
+            obj = ((ReadOnlyBoard) obj).board;
+        }
+        return obj;
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("The board given to a " +
+                "player is read-only. Use clone() to get a copy to " +
+                "experiment with.");
+    }
+}
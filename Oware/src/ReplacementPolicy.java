@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+/**
+ * How a {@link TranspositionTable} chooses which entry of a bucket to
+ * overwrite.
+ *
+ * Every bucket holds two entries. Entries left by an earlier search are always
+ * overwritten first.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public enum ReplacementPolicy {
+
+    /**
+     * The first entry keeps the deepest result and the second takes whatever
+     * the first will not.
+     */
+    DEPTH_PREFERRED_AND_ALWAYS,
+
+    /** An entry is only overwritten by a result at least as deep. */
+    DEPTH_PREFERRED,
+
+    /** An entry is always overwritten by the newest result. */
+    ALWAYS_REPLACE
+}
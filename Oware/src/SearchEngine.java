@@ -0,0 +1,673 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A negamax alpha-beta search with iterative deepening.
+ *
+ * The engine searches on its own {@link BoardImpl}, making and unmaking moves
+ * rather than cloning, and deepens one ply at a time until the deadline. The
+ * move returned is the best move of the last depth that was searched to
+ * completion.
+ *
+ * Results are kept in a {@link TranspositionTable}, so positions reached by
+ * different move orders are searched once, and the best move stored for a
+ * position is tried first when it is searched again at a greater depth.
+ *
+ * Several engines can search the same position at once on separate threads,
+ * sharing one table. The first engine is the main one; helpers start their
+ * iterations at staggered depths so that they fill the table with results
+ * the main engine has not reached yet, and all of them stop when the shared
+ * stop signal is raised.
+ *
+ * Moves are ordered so that cutoffs come early: the move stored in the table
+ * first, then the rest by how often they have caused cutoffs for the player
+ * across the whole search (the history heuristic), except that the two killer
+ * moves that last caused a cutoff at the same ply are brought forward to
+ * follow the leading history move. With only six houses the history already
+ * knows the usual refutations, and putting the killers ahead of it searched
+ * more nodes. The killer and history tables belong to the engine, so engines
+ * searching together do not share them.
+ *
+ * When the depth runs out the search goes on through captures only, as a
+ * quiescence search: the player to move may take the evaluation as it stands
+ * or make any move that captures, found with
+ * {@link BoardImpl#getCaptureMoves(int)}, so positions just before a chain
+ * of captures are not scored as if the captures could not happen.
+ *
+ * Positions with few enough seeds on the board are looked up in the
+ * {@link EndgameDatabase#getDefault() default endgame database}, if there is
+ * one, instead of being searched.
+ *
+ * Scores are from the point of view of the player to move, in hundredths of a
+ * seed. A won game scores {@link #WIN} less the number of plies to reach it,
+ * so quicker wins are preferred.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class SearchEngine implements MoveSearch {
+
+    /**
+     * The score of one seed.
+     */
+    public static final int SEED_VALUE = 100;
+
+    /**
+     * The score of a won game, before subtracting the distance to it.
+     */
+    public static final int WIN = 20000;
+
+    /**
+     * A score greater than any real score.
+     */
+    public static final int INFINITY = 32000;
+
+    /**
+     * The deepest iteration the engine will start.
+     */
+    public static final int MAX_DEPTH = 64;
+
+    /**
+     * The longest line from the root a search can reach. Any score further
+     * than this from {@link #WIN} is not a win.
+     */
+    public static final int MAX_PLY = 128;
+
+    // Check the clock every 1024 nodes.
+    private static final int CHECK_INTERVAL = 1023;
+
+    // History scores are halved when one passes this.
+    private static final int HISTORY_LIMIT = 1 << 24;
+
+    private final TranspositionTable table;
+    private final int helper;
+    private final AtomicBoolean stopSignal;
+    private final int[] probeHouses;
+    private EndgameDatabase endgame;
+    private Evaluation evaluation;
+
+    private final int[][] moveLists;
+    private final int[][] killers;
+    private final int[][] history;
+    private boolean ordering;
+    private boolean quiescence;
+
+    private BoardImpl board;
+    private long deadline;
+    private boolean stopped;
+
+    private long nodes;
+    private int completedDepth;
+    private int bestMove;
+    private int bestScore;
+    private int rootBest;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+
+    /**
+     * Default constructor for SearchEngine class, with a transposition table
+     * configured from system properties.
+     */
+    public SearchEngine() {
+        this(new TranspositionTable());
+    }
+
+    /**
+     * Constructor for SearchEngine class.
+     *
+     * @param table the transposition table to use.
+     */
+    public SearchEngine(TranspositionTable table) {
+        this(table, 0, new AtomicBoolean());
+    }
+
+    /**
+     * Constructor for SearchEngine class, for one of several engines
+     * searching together.
+     *
+     * @param table the transposition table shared by the engines.
+     * @param helper 0 for the main engine, or the number of a helper engine.
+     * Helpers begin at a greater depth and leave the table's generation alone.
+     * @param stopSignal a flag that ends the search when set. It is never
+     * cleared by the engine.
+     */
+    public SearchEngine(TranspositionTable table, int helper,
+            AtomicBoolean stopSignal) {
+        if(helper < 0) {
+            throw new IllegalArgumentException("helper should not be " +
+                    "negative");
+        }
+
+        this.table = table;
+        this.helper = helper;
+        this.stopSignal = stopSignal;
+        this.probeHouses = new int[MoveKernel.HOUSES];
+        this.endgame = EndgameDatabase.getDefault();
+        this.evaluation = Evaluation.getDefault();
+        this.moveLists = new int[MAX_PLY][6];
+        this.killers = new int[MAX_PLY][2];
+        this.history = new int[2][6];
+        this.ordering = true;
+        this.quiescence = true;
+    }
+
+    @Override
+    public int search(Board position, int playerNum, long deadline) {
+        return search(position, playerNum, deadline, MAX_DEPTH);
+    }
+
+    /**
+     * Searches for the best move until the deadline or until an iteration of
+     * the given depth completes.
+     *
+     * @param position the position to search. It is copied, not changed.
+     * @param playerNum the player to move (1 or 2).
+     * @param deadline the value of System.nanoTime() by which to return.
+     * @param maxDepth the deepest iteration to search (1..{@link #MAX_DEPTH}).
+     * @return the house to move from (1..6).
+     *
+     * @throws IllegalArgumentException if the player has no legal move.
+     */
+    public int search(Board position, int playerNum, long deadline,
+            int maxDepth) {
+        if(maxDepth < 1 || maxDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException("maxDepth should be from 1 " +
+                    "to " + MAX_DEPTH);
+        }
+
+        board = new BoardImpl(position);
+        this.deadline = deadline;
+        stopped = false;
+        nodes = 0;
+        completedDepth = 0;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        newHistory();
+
+        if(helper == 0) {
+            table.newSearch();
+        }
+
+        int legal = board.getLegalMoves(playerNum);
+
+        if(legal == 0) {
+            throw new IllegalArgumentException("Player " + playerNum +
+                    " has no legal move.");
+        }
+
+        bestMove = Integer.numberOfTrailingZeros(legal) + 1;
+        bestScore = 0;
+
+        // With only one move there is nothing to search.
+        if(Integer.bitCount(legal) == 1) {
+            return bestMove;
+        }
+
+        // Helpers skip up to three of the shallow iterations.
+        for(int depth = 1 + helper % 4; depth <= maxDepth; depth++) {
+            int score = searchRoot(depth, playerNum, legal);
+
+            if(stopped) {
+                break;
+            }
+
+            completedDepth = depth;
+            bestMove = rootBest;
+            bestScore = score;
+
+            // Stop once the result of the game is known.
+            if(Math.abs(score) >= WIN - MAX_PLY) {
+                break;
+            }
+        }
+
+        return bestMove;
+    }
+
+    /**
+     * Does nothing, as the engine searches on the calling thread.
+     */
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    @Override
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * @return the number of nodes in the last search where a move caused a
+     * cutoff.
+     */
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     * @return the number of nodes in the last search where the first move
+     * searched caused a cutoff. Divided by {@link #getCutoffs()}, this
+     * measures how well moves are ordered.
+     */
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /**
+     * Turns the killer and history move ordering on or off, to measure what
+     * it saves. The move stored in the table is tried first either way.
+     *
+     * @param ordering <code>false</code> to try the other moves in house
+     * order.
+     */
+    public void setMoveOrdering(boolean ordering) {
+        this.ordering = ordering;
+    }
+
+    /**
+     * Turns the quiescence search on or off, to measure what it changes.
+     *
+     * @param quiescence <code>false</code> to evaluate positions as soon as
+     * the depth runs out.
+     */
+    public void setQuiescence(boolean quiescence) {
+        this.quiescence = quiescence;
+    }
+
+    /**
+     * Sets the evaluation of positions at the end of the search.
+     *
+     * @param evaluation the evaluation.
+     */
+    public void setEvaluation(Evaluation evaluation) {
+        this.evaluation = evaluation;
+    }
+
+    /**
+     * Sets the endgame database to look positions up in.
+     *
+     * @param endgame the database, or <code>null</code> to search every
+     * position.
+     */
+    public void setEndgameDatabase(EndgameDatabase endgame) {
+        this.endgame = endgame;
+    }
+
+    /**
+     * @return the transposition table used by this engine.
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    private int searchRoot(int depth, int playerNum, int legal) {
+        int alpha = -INFINITY;
+
+        // Search the previous best move first, then the rest in order.
+        rootBest = bestMove;
+        int score = rootMove(bestMove, depth, playerNum, alpha);
+
+        if(stopped) {
+            return 0;
+        }
+        alpha = score;
+
+        for(int house = 1; house < 7; house++) {
+            if((legal & (1 << (house - 1))) == 0 || house == bestMove) {
+                continue;
+            }
+
+            score = rootMove(house, depth, playerNum, alpha);
+
+            if(stopped) {
+                return 0;
+            }
+            if(score > alpha) {
+                alpha = score;
+                rootBest = house;
+            }
+        }
+
+        return alpha;
+    }
+
+    private int rootMove(int house, int depth, int playerNum, int alpha) {
+        int undo = board.makeLegalMove(house, playerNum);
+        int score = afterMove(playerNum, depth, alpha, INFINITY, 1);
+        board.unmakeMove(undo);
+        return score;
+    }
+
+    /**
+     * The score of the position just reached by a move of playerNum, from
+     * playerNum's point of view.
+     */
+    private int afterMove(int playerNum, int depth, int alpha, int beta,
+            int ply) {
+
+        // More than half the seeds wins the game.
+        if(board.getScore(playerNum) > 24) {
+            return WIN - ply;
+        }
+        return -negamax(depth - 1, -beta, -alpha, 3 - playerNum, ply);
+    }
+
+    private int negamax(int depth, int alpha, int beta, int playerNum,
+            int ply) {
+
+        if((++nodes & CHECK_INTERVAL) == 0 && (stopSignal.get() ||
+                System.nanoTime() >= deadline)) {
+            stopped = true;
+        }
+        if(stopped) {
+            return 0;
+        }
+
+        int legal = board.getLegalMoves(playerNum);
+
+        if(legal == 0) {
+            return gameOver(board, playerNum, ply);
+        }
+        if(endgame != null && board.getSideSeeds(1) + board.getSideSeeds(2) <=
+                endgame.getMaxSeeds()) {
+            return solved(playerNum, ply);
+        }
+        if(depth <= 0) {
+            return quiescence ? quiesce(alpha, beta, playerNum, ply) :
+                    evaluation.evaluate(board, playerNum);
+        }
+
+        long key = board.getPositionKey(playerNum);
+        long entry = table.probe(key);
+        int tableMove = 0;
+
+        if(TranspositionTable.bound(entry) != 0) {
+            tableMove = TranspositionTable.move(entry);
+
+            if(TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+
+                if(bound == TranspositionTable.EXACT ||
+                        (bound == TranspositionTable.LOWER && score >= beta) ||
+                        (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestHouse = 0;
+
+        if(tableMove != 0 && (legal & (1 << (tableMove - 1))) == 0) {
+            tableMove = 0;
+        }
+
+        int[] moves = moveLists[ply];
+        int count = orderMoves(moves, legal, tableMove, playerNum, ply);
+
+        for(int i = 0; i < count; i++) {
+            int house = moves[i];
+            int undo = board.makeLegalMove(house, playerNum);
+            int score = afterMove(playerNum, depth, alpha, beta, ply + 1);
+            board.unmakeMove(undo);
+
+            if(score > best) {
+                best = score;
+                bestHouse = house;
+
+                if(score > alpha) {
+                    alpha = score;
+
+                    if(alpha >= beta) {
+                        cutoffs++;
+
+                        if(i == 0) {
+                            firstMoveCutoffs++;
+                        }
+                        recordCutoff(house, depth, playerNum, ply);
+                        break;
+                    }
+                }
+            }
+        }
+
+        if(!stopped) {
+            int bound = best <= originalAlpha ? TranspositionTable.UPPER :
+                    best >= beta ? TranspositionTable.LOWER :
+                    TranspositionTable.EXACT;
+
+            table.store(key, depth, bound, toTable(best, ply), bestHouse);
+        }
+
+        return best;
+    }
+
+    /**
+     * The score of a position past the depth limit, searching only captures
+     * until the player to move prefers the evaluation to any capture.
+     */
+    private int quiesce(int alpha, int beta, int playerNum, int ply) {
+        int best = evaluation.evaluate(board, playerNum);
+
+        if(best >= beta || ply >= MAX_PLY - 1) {
+            return best;
+        }
+        if(best > alpha) {
+            alpha = best;
+        }
+
+        for(int captures = board.getCaptureMoves(playerNum); captures != 0;
+                captures &= captures - 1) {
+            int house = Integer.numberOfTrailingZeros(captures) + 1;
+
+            int undo = board.makeLegalMove(house, playerNum);
+            int score = afterMove(playerNum, 0, alpha, beta, ply + 1);
+            board.unmakeMove(undo);
+
+            if(score > best) {
+                best = score;
+
+                if(score > alpha) {
+                    alpha = score;
+
+                    if(alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Fills a list with the legal moves of a node in the order to search
+     * them: the table move, the leading history move, the killers, then the
+     * rest by history score.
+     *
+     * @return the number of moves.
+     */
+    private int orderMoves(int[] moves, int legal, int tableMove,
+            int playerNum, int ply) {
+        int count = 0;
+
+        if(tableMove != 0) {
+            moves[count++] = tableMove;
+            legal &= ~(1 << (tableMove - 1));
+        }
+
+        if(!ordering) {
+            for(; legal != 0; legal &= legal - 1) {
+                moves[count++] = Integer.numberOfTrailingZeros(legal) + 1;
+            }
+            return count;
+        }
+
+        // Insertion sort by history, with at most six moves.
+        int[] scores = history[playerNum - 1];
+        int first = count;
+
+        for(; legal != 0; legal &= legal - 1) {
+            int house = Integer.numberOfTrailingZeros(legal) + 1;
+            int i = count++;
+
+            while(i > first && scores[moves[i - 1] - 1] < scores[house - 1]) {
+                moves[i] = moves[i - 1];
+                i--;
+            }
+            moves[i] = house;
+        }
+
+        // Bring the killers forward, newest last so that it ends up first.
+        for(int k = 1; k >= 0; k--) {
+            promote(moves, first + 1, count, killers[ply][k]);
+        }
+        return count;
+    }
+
+    /**
+     * Moves a house, if it is in the list from index start on, to start.
+     */
+    private static void promote(int[] moves, int start, int count,
+            int house) {
+        for(int i = start + 1; i < count; i++) {
+            if(moves[i] == house) {
+                System.arraycopy(moves, start, moves, start + 1, i - start);
+                moves[start] = house;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Makes a move that caused a cutoff the first killer at its ply and adds
+     * to its history score, weighted by the depth it saved.
+     */
+    private void recordCutoff(int house, int depth, int playerNum, int ply) {
+        int[] plyKillers = killers[ply];
+
+        if(plyKillers[0] != house) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = house;
+        }
+
+        int[] scores = history[playerNum - 1];
+        scores[house - 1] += depth * depth;
+
+        if(scores[house - 1] > HISTORY_LIMIT) {
+            for(int[] player : history) {
+                for(int i = 0; i < player.length; i++) {
+                    player[i] >>= 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears the killers, which belong to the last position searched, and
+     * halves the history scores so that recent searches count for more.
+     */
+    private void newHistory() {
+        for(int[] plyKillers : killers) {
+            plyKillers[0] = 0;
+            plyKillers[1] = 0;
+        }
+        for(int[] player : history) {
+            for(int i = 0; i < player.length; i++) {
+                player[i] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Converts a win score from distance-to-root to distance-to-this-position
+     * for storing.
+     */
+    private static int toTable(int score, int ply) {
+        if(score >= WIN - MAX_PLY) {
+            return score + ply;
+        }
+        else if(score <= -(WIN - MAX_PLY)) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if(score >= WIN - MAX_PLY) {
+            return score - ply;
+        }
+        else if(score <= -(WIN - MAX_PLY)) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * The score when playerNum cannot move: the game ends and the opponent
+     * captures the seeds left on their side.
+     */
+    static int gameOver(Board board, int playerNum, int ply) {
+        int opponent = 3 - playerNum;
+        int difference = board.getScore(playerNum) - board.getScore(opponent) -
+                board.getSideSeeds(opponent);
+
+        if(difference > 0) {
+            return WIN - ply;
+        }
+        else if(difference < 0) {
+            return -(WIN - ply);
+        }
+        return 0;
+    }
+
+    /**
+     * The score of a position in the endgame database. Its result is known,
+     * but not how far away it is, so a known win scores less than any win
+     * the search has found the way to.
+     */
+    private int solved(int playerNum, int ply) {
+        board.getHouses(probeHouses);
+
+        int difference = board.getScore(playerNum) -
+                board.getScore(3 - playerNum) +
+                endgame.probe(probeHouses, playerNum);
+
+        if(difference > 0) {
+            return WIN - MAX_DEPTH - ply;
+        }
+        else if(difference < 0) {
+            return -(WIN - MAX_DEPTH - ply);
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+/**
+ * The kinds of search a {@link ComputerPlayer} can use.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public enum SearchMode {
+
+    /** One {@link SearchEngine} on the calling thread. */
+    SERIAL,
+
+    /**
+     * A {@link LazySmpSearch}, or a single engine when only one thread is
+     * wanted.
+     */
+    LAZY_SMP,
+
+    /**
+     * A {@link YbwcSearch}, whose results do not depend on thread scheduling.
+     */
+    YOUNG_BROTHERS_WAIT,
+
+    /** An {@link MctsSearch} sharing one tree between its threads. */
+    MONTE_CARLO;
+
+    /**
+     * Creates a search of this kind.
+     *
+     * @param threads the number of threads to search with. Ignored by
+     * {@link #SERIAL}.
+     * @return the new search.
+     */
+    public MoveSearch create(int threads) {
+        switch(this) {
+            case LAZY_SMP:
+                return threads == 1 ? new SearchEngine() :
+                        new LazySmpSearch(threads);
+            case YOUNG_BROTHERS_WAIT:
+                return new YbwcSearch(threads);
+            case MONTE_CARLO:
+                return new MctsSearch(threads);
+            default:
+                return new SearchEngine();
+        }
+    }
+}
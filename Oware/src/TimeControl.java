@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.io.Serializable;
+
+/**
+ * The time a computer player is allowed for each move.
+ *
+ * The Player contract gives a computer player one second per move, after
+ * which it forfeits. A player searches until a deadline the safety margin
+ * short of the limit, leaving the margin for stopping its threads and
+ * returning the move. The game measures each move and forfeits a player
+ * only when it takes longer than the limit plus a grace period, so that a
+ * slow host does not cost a player that returned on time by its own clock.
+ *
+ * The default time control reads the limit, margin and grace period in
+ * milliseconds from the {@link #LIMIT_PROPERTY}, {@link #MARGIN_PROPERTY}
+ * and {@link #GRACE_PROPERTY} system properties.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class TimeControl implements Serializable {
+
+    /**
+     * The system property giving the time allowed per move in milliseconds.
+     */
+    public static final String LIMIT_PROPERTY = "oware.move.limit.ms";
+
+    /**
+     * The system property giving how long before the limit a player stops
+     * searching, in milliseconds.
+     */
+    public static final String MARGIN_PROPERTY = "oware.move.margin.ms";
+
+    /**
+     * The system property giving how far past the limit a move may run before
+     * the player forfeits, in milliseconds.
+     */
+    public static final String GRACE_PROPERTY = "oware.move.grace.ms";
+
+    /**
+     * The default time allowed per move, in milliseconds.
+     */
+    public static final long DEFAULT_LIMIT = 1000;
+
+    /**
+     * The default safety margin, in milliseconds.
+     */
+    public static final long DEFAULT_MARGIN = 100;
+
+    /**
+     * The default grace period, in milliseconds.
+     */
+    public static final long DEFAULT_GRACE = 0;
+
+    private static TimeControl defaultControl;
+
+    private final long limit;
+    private final long margin;
+    private final long grace;
+
+    /**
+     * Constructor for TimeControl class.
+     *
+     * @param limit the time allowed per move in milliseconds.
+     * @param margin how long before the limit to stop searching, in
+     * milliseconds.
+     * @param grace how far past the limit a move may run before the player
+     * forfeits, in milliseconds.
+     */
+    public TimeControl(long limit, long margin, long grace) {
+        if(limit < 1) {
+            throw new IllegalArgumentException("limit should be positive");
+        }
+        if(margin < 0 || margin >= limit) {
+            throw new IllegalArgumentException("margin should be from 0 to " +
+                    "less than the limit");
+        }
+        if(grace < 0) {
+            throw new IllegalArgumentException("grace should not be " +
+                    "negative");
+        }
+
+        this.limit = limit;
+        this.margin = margin;
+        this.grace = grace;
+    }
+
+    /**
+     * The time control given by the system properties, read on first use.
+     *
+     * @return the default time control.
+     */
+    public static synchronized TimeControl getDefault() {
+        if(defaultControl == null) {
+            defaultControl = new TimeControl(
+                    Long.getLong(LIMIT_PROPERTY, DEFAULT_LIMIT),
+                    Long.getLong(MARGIN_PROPERTY, DEFAULT_MARGIN),
+                    Long.getLong(GRACE_PROPERTY, DEFAULT_GRACE));
+        }
+        return defaultControl;
+    }
+
+    /**
+     * @return the time allowed per move in milliseconds.
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the safety margin in milliseconds.
+     */
+    public long getMargin() {
+        return margin;
+    }
+
+    /**
+     * @return the grace period in milliseconds.
+     */
+    public long getGrace() {
+        return grace;
+    }
+
+    /**
+     * @return the time a player may search for, in milliseconds: the limit
+     * less the margin.
+     */
+    public long getSearchTime() {
+        return limit - margin;
+    }
+
+    /**
+     * The deadline for a move that started at the given time.
+     *
+     * @param start the value of System.nanoTime() when the move was asked
+     * for.
+     * @return the value of System.nanoTime() by which to stop searching.
+     */
+    public long deadline(long start) {
+        return start + getSearchTime() * 1000000L;
+    }
+
+    /**
+     * Whether a move took too long.
+     *
+     * @param nanos the time the move took, in nanoseconds.
+     * @return <code>true</code> if the player forfeits the game.
+     */
+    public boolean exceeded(long nanos) {
+        return nanos > (limit + grace) * 1000000L;
+    }
+}
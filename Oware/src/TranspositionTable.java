@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size transposition table of search results, keyed by
+ * {@link Board#getPositionKey(int) position key}.
+ *
+ * The table is one preallocated array of longs divided into buckets of two
+ * entries. An entry is two longs: the key XORed with the data, then the data.
+ * A probe only accepts an entry whose two halves XOR back to the key, so
+ * entries torn by two threads writing at once are read as misses. This lets
+ * several search threads share one table without locks.
+ *
+ * The data long packs the score (bits 0-15), best move (16-18), bound type
+ * (19-20), depth (21-27) and the search generation (28-35). A probe that
+ * misses returns 0, which has no bound type.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class TranspositionTable {
+
+    /**
+     * The system property giving the table size in megabytes.
+     */
+    public static final String SIZE_PROPERTY = "oware.hash";
+
+    /**
+     * The system property naming the {@link ReplacementPolicy}.
+     */
+    public static final String POLICY_PROPERTY = "oware.hash.policy";
+
+    /**
+     * The table size in megabytes when none is configured.
+     */
+    public static final int DEFAULT_SIZE = 16;
+
+    /**
+     * The largest table size in megabytes.
+     */
+    public static final int MAX_SIZE = 4096;
+
+    /** The score is exact. */
+    public static final int EXACT = 1;
+
+    /** The score is a lower bound: the search failed high. */
+    public static final int LOWER = 2;
+
+    /** The score is an upper bound: the search failed low. */
+    public static final int UPPER = 3;
+
+    private static final int BUCKET_BYTES = 32;
+    private static final int BUCKET_LONGS = 4;
+
+    private static final int MOVE_SHIFT = 16;
+    private static final int BOUND_SHIFT = 19;
+    private static final int DEPTH_SHIFT = 21;
+    private static final int GENERATION_SHIFT = 28;
+
+    private final long[] table;
+    private final int mask;
+    private final ReplacementPolicy policy;
+    private int generation;
+
+    /**
+     * Constructor for TranspositionTable class, sized and configured from the
+     * {@link #SIZE_PROPERTY} and {@link #POLICY_PROPERTY} system properties.
+     */
+    public TranspositionTable() {
+        this(Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE),
+                ReplacementPolicy.valueOf(System.getProperty(POLICY_PROPERTY,
+                ReplacementPolicy.DEPTH_PREFERRED_AND_ALWAYS.name())));
+    }
+
+    /**
+     * Constructor for TranspositionTable class.
+     *
+     * @param megabytes the size of the table. It is rounded down to a power
+     * of two.
+     * @param policy how entries are replaced.
+     */
+    public TranspositionTable(int megabytes, ReplacementPolicy policy) {
+        if(megabytes < 1 || megabytes > MAX_SIZE) {
+            throw new IllegalArgumentException("Table size should be from 1 " +
+                    "to " + MAX_SIZE + " MB");
+        }
+
+        int buckets = Integer.highestOneBit((int) ((long) megabytes *
+                1024 * 1024 / BUCKET_BYTES));
+
+        this.table = new long[buckets * BUCKET_LONGS];
+        this.mask = buckets - 1;
+        this.policy = policy;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key the position key.
+     * @return the data stored for the position, or 0 if there is none.
+     */
+    public long probe(long key) {
+        int bucket = bucket(key);
+
+        for(int i = bucket; i < bucket + BUCKET_LONGS; i += 2) {
+            long data = table[i + 1];
+
+            if((table[i] ^ data) == key) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores a search result, if the replacement policy allows it.
+     *
+     * @param key the position key.
+     * @param depth the depth searched (0..127).
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}.
+     * @param score the score, adjusted so that it does not depend on the
+     * distance from the root.
+     * @param move the best move (1..6), or 0 if there is none.
+     */
+    public void store(long key, int depth, int bound, int score, int move) {
+        int bucket = bucket(key);
+        int slot;
+
+        // A result for the same position is always replaced.
+        if((table[bucket] ^ table[bucket + 1]) == key) {
+            slot = bucket;
+        }
+        else if((table[bucket + 2] ^ table[bucket + 3]) == key) {
+            slot = bucket + 2;
+        }
+        else if(policy == ReplacementPolicy.DEPTH_PREFERRED_AND_ALWAYS) {
+            slot = replaceable(bucket, depth) ? bucket : bucket + 2;
+        }
+        else {
+
+            // The single-entry policies pick a slot by the top bit of the key.
+            slot = bucket + 2 * (int) (key >>> 63);
+
+            if(policy == ReplacementPolicy.DEPTH_PREFERRED &&
+                    !replaceable(slot, depth)) {
+                return;
+            }
+        }
+
+        long data = (score & 0xFFFFL) | ((long) move << MOVE_SHIFT) |
+                ((long) bound << BOUND_SHIFT) | ((long) depth << DEPTH_SHIFT) |
+                ((long) generation << GENERATION_SHIFT);
+
+        table[slot] = key ^ data;
+        table[slot + 1] = data;
+    }
+
+    /**
+     * Marks the start of a new search, so that entries left by earlier
+     * searches are replaced first.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Removes every entry from the table.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+    }
+
+    /**
+     * @return the number of entries the table holds.
+     */
+    public int capacity() {
+        return table.length / 2;
+    }
+
+    /**
+     * @param data data returned by {@link #probe(long)}.
+     * @return the stored score.
+     */
+    public static int score(long data) {
+        return (short) data;
+    }
+
+    /**
+     * @param data data returned by {@link #probe(long)}.
+     * @return the stored best move, or 0 if there is none.
+     */
+    public static int move(long data) {
+        return (int) (data >>> MOVE_SHIFT) & 0x7;
+    }
+
+    /**
+     * @param data data returned by {@link #probe(long)}.
+     * @return the stored bound type, or 0 if the probe missed.
+     */
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    /**
+     * @param data data returned by {@link #probe(long)}.
+     * @return the stored depth.
+     */
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0x7F;
+    }
+
+    private int bucket(long key) {
+        return ((int) key & mask) * BUCKET_LONGS;
+    }
+
+    private boolean replaceable(int slot, int depth) {
+        long data = table[slot + 1];
+
+        return bound(data) == 0 ||
+                ((int) (data >>> GENERATION_SHIFT) & 0xFF) != generation ||
+                depth >= depth(data);
+    }
+}
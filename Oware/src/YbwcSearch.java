@@ -0,0 +1,485 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A parallel alpha-beta search using the Young Brothers Wait rule on a
+ * ForkJoinPool.
+ *
+ * At every node deep enough to be worth splitting, the eldest child is
+ * searched first on the current thread. Only once it has set a bound are its
+ * younger brothers forked as tasks, each on its own copy of the board. When a
+ * brother fails high, the others at that split point are cancelled, and tasks
+ * already running see the cutoff and return.
+ *
+ * The search has no transposition table and the root's younger brothers are
+ * all searched against the eldest's score, so for a given depth the score and
+ * move returned do not depend on how the threads are scheduled. Only the
+ * number of nodes visited varies between runs.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class YbwcSearch implements MoveSearch {
+
+    /**
+     * The least remaining depth at which a node's younger brothers are
+     * searched in parallel. Shallower nodes are searched on one thread.
+     */
+    public static final int SPLIT_DEPTH = 4;
+
+    private static final int CHECK_INTERVAL = 1023;
+    private static final int ABORT_INTERVAL = 15;
+
+    private final ForkJoinPool pool;
+    private final AtomicLong nodes;
+    private final Evaluation evaluation;
+
+    private long deadline;
+    private volatile boolean timeUp;
+
+    private int completedDepth;
+    private int bestMove;
+    private int bestScore;
+
+    /**
+     * Constructor for YbwcSearch class.
+     *
+     * @param threads the number of worker threads.
+     */
+    public YbwcSearch(int threads) {
+        if(threads < 1) {
+            throw new IllegalArgumentException("threads should be at least 1");
+        }
+
+        pool = new ForkJoinPool(threads);
+        nodes = new AtomicLong();
+        evaluation = Evaluation.getDefault();
+    }
+
+    @Override
+    public int search(Board position, int playerNum, long deadline) {
+        return search(position, playerNum, deadline, SearchEngine.MAX_DEPTH);
+    }
+
+    /**
+     * Searches for the best move until the deadline or until an iteration of
+     * the given depth completes. Searches to a fixed depth with a distant
+     * deadline give the same result on every run.
+     *
+     * @param position the position to search. It is not changed.
+     * @param playerNum the player to move (1 or 2).
+     * @param deadline the value of System.nanoTime() by which to return.
+     * @param maxDepth the deepest iteration to search.
+     * @return the house to move from (1..6).
+     *
+     * @throws IllegalArgumentException if the player has no legal move.
+     */
+    public int search(Board position, int playerNum, long deadline,
+            int maxDepth) {
+        if(maxDepth < 1 || maxDepth > SearchEngine.MAX_DEPTH) {
+            throw new IllegalArgumentException("maxDepth should be from 1 " +
+                    "to " + SearchEngine.MAX_DEPTH);
+        }
+
+        BoardImpl board = new BoardImpl(position);
+        int legal = board.getLegalMoves(playerNum);
+
+        if(legal == 0) {
+            throw new IllegalArgumentException("Player " + playerNum +
+                    " has no legal move.");
+        }
+
+        this.deadline = deadline;
+        timeUp = false;
+        nodes.set(0);
+        completedDepth = 0;
+        bestMove = Integer.numberOfTrailingZeros(legal) + 1;
+        bestScore = 0;
+
+        if(Integer.bitCount(legal) == 1) {
+            return bestMove;
+        }
+
+        for(int depth = 1; depth <= maxDepth; depth++) {
+            RootTask root = new RootTask(board, playerNum, depth, bestMove);
+            int score = pool.invoke(root);
+
+            if(timeUp) {
+                break;
+            }
+
+            completedDepth = depth;
+            bestMove = root.bestHouse;
+            bestScore = score;
+
+            if(Math.abs(score) >= SearchEngine.WIN - SearchEngine.MAX_PLY) {
+                break;
+            }
+        }
+
+        return bestMove;
+    }
+
+    /**
+     * @return the number of positions visited by all threads in the last
+     * search.
+     */
+    @Override
+    public long getNodes() {
+        return nodes.get();
+    }
+
+    @Override
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    @Override
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * A node whose younger brothers are being searched in parallel.
+     */
+    private static final class SplitPoint {
+
+        final SplitPoint parent;
+        final int beta;
+        final boolean fixedAlpha;
+
+        volatile int alpha;
+        volatile boolean cutoff;
+        List<NodeTask> tasks;
+
+        SplitPoint(SplitPoint parent, int alpha, int beta,
+                boolean fixedAlpha) {
+            this.parent = parent;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.fixedAlpha = fixedAlpha;
+        }
+
+        /**
+         * Takes the score of a finished brother, cancelling the rest if it
+         * fails high.
+         */
+        synchronized void report(int score, NodeTask brother) {
+            if(!fixedAlpha && score > alpha) {
+                alpha = score;
+            }
+
+            if(score >= beta && !cutoff) {
+                cutoff = true;
+
+                for(NodeTask task : tasks) {
+                    if(task != brother) {
+                        task.cancel(false);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A search on one thread. It splits into {@link NodeTask}s at nodes deep
+     * enough, and stops early when the time is up or any split point it
+     * belongs to has been cut off.
+     */
+    private abstract class Searcher extends RecursiveTask<Integer> {
+
+        final SplitPoint split;
+        final BoardImpl board;
+        long searched;
+        boolean halted;
+
+        // The best younger brother found by the last split, or 0 if none
+        // beat the eldest.
+        int splitBest;
+
+        Searcher(SplitPoint split, BoardImpl board) {
+            this.split = split;
+            this.board = board;
+        }
+
+        boolean aborted() {
+            if(timeUp) {
+                return true;
+            }
+
+            for(SplitPoint point = split; point != null;
+                    point = point.parent) {
+                if(point.cutoff) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * The score of the position just reached by a move of playerNum, from
+         * playerNum's point of view.
+         */
+        int afterMove(int playerNum, int depth, int alpha, int beta, int ply) {
+            if(board.getScore(playerNum) > 24) {
+                return SearchEngine.WIN - ply;
+            }
+            return -negamax(depth - 1, -beta, -alpha, 3 - playerNum, ply);
+        }
+
+        int negamax(int depth, int alpha, int beta, int playerNum, int ply) {
+            searched++;
+
+            if((searched & CHECK_INTERVAL) == 0 &&
+                    System.nanoTime() >= deadline) {
+                timeUp = true;
+            }
+            if(!halted && (searched & ABORT_INTERVAL) == 0 && aborted()) {
+                halted = true;
+            }
+            if(halted) {
+                return 0;
+            }
+
+            int legal = board.getLegalMoves(playerNum);
+
+            if(legal == 0) {
+                return SearchEngine.gameOver(board, playerNum, ply);
+            }
+            if(depth <= 0) {
+                return evaluation.evaluate(board, playerNum);
+            }
+
+            // The eldest brother is searched before any split.
+            int eldest = Integer.numberOfTrailingZeros(legal) + 1;
+            int undo = board.makeLegalMove(eldest, playerNum);
+            int best = afterMove(playerNum, depth, alpha, beta, ply + 1);
+            board.unmakeMove(undo);
+
+            if(best > alpha) {
+                alpha = best;
+            }
+            if(alpha >= beta || halted) {
+                return best;
+            }
+
+            int younger = legal & ~(1 << (eldest - 1));
+
+            if(depth < SPLIT_DEPTH || Integer.bitCount(younger) < 2) {
+                for(int house = eldest + 1; house < 7; house++) {
+                    if((younger & (1 << (house - 1))) == 0) {
+                        continue;
+                    }
+
+                    undo = board.makeLegalMove(house, playerNum);
+                    int score = afterMove(playerNum, depth, alpha, beta,
+                            ply + 1);
+                    board.unmakeMove(undo);
+
+                    if(score > best) {
+                        best = score;
+
+                        if(score > alpha) {
+                            alpha = score;
+
+                            if(alpha >= beta) {
+                                break;
+                            }
+                        }
+                    }
+                }
+                return best;
+            }
+
+            SplitPoint point = new SplitPoint(split, alpha, beta, false);
+            return split(point, younger, playerNum, depth, ply, best);
+        }
+
+        /**
+         * Forks a task for each younger brother and joins them.
+         *
+         * @param best the score of the eldest brother.
+         * @return the best of that score and the complete scores of the
+         * younger brothers.
+         */
+        int split(SplitPoint point, int younger, int playerNum, int depth,
+                int ply, int best) {
+            List<NodeTask> tasks = new ArrayList<>(6);
+            splitBest = 0;
+
+            for(int house = 1; house < 7; house++) {
+                if((younger & (1 << (house - 1))) == 0) {
+                    continue;
+                }
+
+                int undo = board.makeLegalMove(house, playerNum);
+
+                // A move that wins outright needs no task.
+                if(board.getScore(playerNum) > 24) {
+                    board.unmakeMove(undo);
+                    int score = SearchEngine.WIN - (ply + 1);
+
+                    if(score > best) {
+                        best = score;
+                        splitBest = house;
+
+                        if(score >= point.beta) {
+                            return best;
+                        }
+                        if(!point.fixedAlpha && score > point.alpha) {
+                            point.alpha = score;
+                        }
+                    }
+                    continue;
+                }
+
+                tasks.add(new NodeTask(point, new BoardImpl(board), house,
+                        3 - playerNum, depth - 1, ply + 1));
+                board.unmakeMove(undo);
+            }
+
+            point.tasks = tasks;
+
+            for(NodeTask task : tasks) {
+                task.fork();
+            }
+
+            for(NodeTask task : tasks) {
+                int score;
+
+                try {
+                    score = -task.join();
+                }
+                catch(CancellationException ex) {
+                    continue;
+                }
+
+                if(task.complete && score > best) {
+                    best = score;
+                    splitBest = task.house;
+                }
+            }
+
+            return best;
+        }
+
+        void finish() {
+            nodes.addAndGet(searched);
+        }
+    }
+
+    /**
+     * The search of one younger brother, from the point of view of the
+     * player to move in it.
+     */
+    private final class NodeTask extends Searcher {
+
+        final int house;
+        final int playerNum;
+        final int depth;
+        final int ply;
+        volatile boolean complete;
+
+        NodeTask(SplitPoint split, BoardImpl board, int house, int playerNum,
+                int depth, int ply) {
+            super(split, board);
+            this.house = house;
+            this.playerNum = playerNum;
+            this.depth = depth;
+            this.ply = ply;
+        }
+
+        @Override
+        protected Integer compute() {
+
+            // Most tasks are too small to reach a clock check of their own.
+            if(System.nanoTime() >= deadline) {
+                timeUp = true;
+            }
+
+            // Take the window as it is now, as brothers may have raised alpha.
+            int score = negamax(depth, -split.beta, -split.alpha, playerNum,
+                    ply);
+
+            if(!halted && !aborted()) {
+                complete = true;
+                split.report(-score, this);
+            }
+
+            finish();
+            return score;
+        }
+    }
+
+    /**
+     * The search of the root to one depth.
+     */
+    private final class RootTask extends Searcher {
+
+        final int playerNum;
+        final int depth;
+        final int first;
+        int bestHouse;
+
+        RootTask(BoardImpl board, int playerNum, int depth, int first) {
+            super(null, new BoardImpl(board));
+            this.playerNum = playerNum;
+            this.depth = depth;
+            this.first = first;
+        }
+
+        @Override
+        protected Integer compute() {
+            int legal = board.getLegalMoves(playerNum);
+
+            // The previous best move is the eldest brother.
+            int undo = board.makeLegalMove(first, playerNum);
+            int score = afterMove(playerNum, depth, -SearchEngine.INFINITY,
+                    SearchEngine.INFINITY, 1);
+            board.unmakeMove(undo);
+
+            bestHouse = first;
+
+            // The younger brothers all search against the eldest's score, so
+            // that only scores better than it, which are exact, are used.
+            SplitPoint point = new SplitPoint(null, score,
+                    SearchEngine.INFINITY, true);
+            int younger = legal & ~(1 << (first - 1));
+            int best = split(point, younger, playerNum, depth, 0, score);
+
+            if(splitBest != 0) {
+                bestHouse = splitBest;
+            }
+
+            finish();
+            return best;
+        }
+    }
+}
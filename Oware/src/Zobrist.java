@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+/**
+ * Zobrist keys for Oware positions.
+ *
+ * A position key is the XOR of one random 64-bit key per (house, seed count),
+ * one per (player, score) and one for player 2 being on move. Empty houses and
+ * zero scores contribute nothing. Keys come from a fixed seed, so the same
+ * position has the same key in every run and keys may be written to files.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public final class Zobrist {
+
+    private static final int TABLE_VALUES = 64;
+
+    private static final long[] HOUSE_KEYS =
+            new long[MoveKernel.HOUSES * TABLE_VALUES];
+    private static final long[] SCORE_KEYS = new long[2 * TABLE_VALUES];
+
+    /**
+     * The key XORed in when player 2 is to move.
+     */
+    public static final long SIDE_KEY;
+
+    static {
+        long state = 0x4F57415245L;
+
+        for(int i = 0; i < HOUSE_KEYS.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            HOUSE_KEYS[i] = i % TABLE_VALUES == 0 ? 0 : mix(state);
+        }
+        for(int i = 0; i < SCORE_KEYS.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            SCORE_KEYS[i] = i % TABLE_VALUES == 0 ? 0 : mix(state);
+        }
+
+        state += 0x9E3779B97F4A7C15L;
+        SIDE_KEY = mix(state);
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * The key of a house holding a number of seeds.
+     *
+     * @param index the index of the house (0..11, as in {@link BoardImpl}).
+     * @param seeds the number of seeds in the house.
+     * @return the key, 0 for an empty house.
+     */
+    public static long house(int index, int seeds) {
+        if(seeds >= 0 && seeds < TABLE_VALUES) {
+            return HOUSE_KEYS[index * TABLE_VALUES + seeds];
+        }
+        return mix(0x686F757365L + index * 0x100000000L + seeds);
+    }
+
+    /**
+     * The key of a player's score.
+     *
+     * @param playerNum the player's number (1 or 2).
+     * @param score the number of seeds in the player's score house.
+     * @return the key, 0 for a score of 0.
+     */
+    public static long score(int playerNum, int score) {
+        if(score >= 0 && score < TABLE_VALUES) {
+            return SCORE_KEYS[(playerNum - 1) * TABLE_VALUES + score];
+        }
+        return mix(0x73636F7265L + playerNum * 0x100000000L + score);
+    }
+
+    /**
+     * The key for the player to move.
+     *
+     * @param playerToMove the player's number (1 or 2).
+     * @return {@link #SIDE_KEY} for player 2, otherwise 0.
+     */
+    public static long side(int playerToMove) {
+        return playerToMove == 2 ? SIDE_KEY : 0;
+    }
+
+    /**
+     * Computes the key of the houses from scratch.
+     *
+     * @param houses the 12 houses of the board.
+     * @return the XOR of the keys of all the houses.
+     */
+    public static long houses(int[] houses) {
+        long key = 0;
+
+        for(int i = 0; i < MoveKernel.HOUSES; i++) {
+            key ^= house(i, houses[i]);
+        }
+        return key;
+    }
+
+    /**
+     * The splitmix64 finaliser.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package utilities;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A set of primitive longs using open addressing with linear probing.
+ *
+ * Keys are stored directly in a power-of-two sized array, so adding and
+ * looking up a key does not box it or allocate an entry object.
+ *
+ * @author Alistair Madden
+ * @version 0.1
+ */
+public class LongHashSet implements Serializable {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    // 0 marks an empty slot, so the key 0 is tracked separately.
+    private long[] table;
+    private boolean containsZero;
+    private int size;
+
+    /**
+     * Default constructor for LongHashSet class.
+     */
+    public LongHashSet() {
+        table = new long[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Adds a key to the set.
+     *
+     * @param key the key to add.
+     * @return <code>true</code> if the key was not already in the set.
+     */
+    public boolean add(long key) {
+        if(key == 0) {
+            if(containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int mask = table.length - 1;
+
+        for(int i = slot(key, mask); ; i = (i + 1) & mask) {
+            if(table[i] == key) {
+                return false;
+            }
+            if(table[i] == 0) {
+                table[i] = key;
+                size++;
+
+                // Keep the table at most half full.
+                if(2 * size > table.length) {
+                    grow();
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Checks whether a key is in the set.
+     *
+     * @param key the key to look for.
+     * @return <code>true</code> if the key has been added since the set was
+     * last cleared.
+     */
+    public boolean contains(long key) {
+        if(key == 0) {
+            return containsZero;
+        }
+
+        int mask = table.length - 1;
+
+        for(int i = slot(key, mask); ; i = (i + 1) & mask) {
+            if(table[i] == key) {
+                return true;
+            }
+            if(table[i] == 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Removes every key from the set, keeping its capacity.
+     */
+    public void clear() {
+        if(size != 0) {
+            Arrays.fill(table, 0);
+            containsZero = false;
+            size = 0;
+        }
+    }
+
+    /**
+     * @return the number of keys in the set.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        size = containsZero ? 1 : 0;
+
+        for(long key : old) {
+            if(key != 0) {
+                add(key);
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+
+        // Mix the high bits in, in case keys are only random in some bits.
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+}
@@ -73,6 +73,145 @@ public class BoardImplTest {
         assertEquals(expResult, instance);
     }
 
+    /**
+     * Test of makeMove method with a full lap, of class BoardImpl.
+     */
+    @Test
+    public void testMakeMoveLap() throws Exception {
+        
+        System.out.println("makeMove lap");
+        
+        instance.setSeeds(12, 3, 1);
+        instance.makeMove(3, 1);
+        
+        // The origin house is skipped, so the twelfth seed lands in house 4.
+        assertEquals(0, instance.getSeeds(3, 1));
+        assertEquals(6, instance.getSeeds(4, 1));
+        assertEquals(5, instance.getSeeds(5, 1));
+        assertEquals(5, instance.getSeeds(2, 1));
+        assertEquals(5, instance.getSeeds(6, 2));
+    }
+
+    /**
+     * Test of makeMove method when player 2 captures through house 1 of
+     * player 1, of class BoardImpl.
+     */
+    @Test
+    public void testMakeMoveCapture() throws Exception {
+        
+        System.out.println("makeMove capture");
+        
+        for(int i = 1; i < 7; i++) {
+            instance.setSeeds(0, i, 1);
+            instance.setSeeds(0, i, 2);
+        }
+        instance.setSeeds(3, 5, 2);
+        instance.setSeeds(1, 1, 1);
+        instance.setSeeds(2, 2, 1);
+        
+        instance.makeMove(5, 2);
+        
+        assertEquals(5, instance.getScore(2));
+        assertEquals(0, instance.getSeeds(1, 1));
+        assertEquals(0, instance.getSeeds(2, 1));
+    }
+
+    /**
+     * Test of tryMove method, of class BoardImpl.
+     */
+    @Test
+    public void testTryMove() throws Exception {
+        
+        System.out.println("tryMove");
+        
+        assertEquals(MoveResult.OUT_OF_RANGE, instance.tryMove(7, 1));
+        assertEquals(MoveResult.OUT_OF_RANGE, instance.tryMove(1, 3));
+        assertEquals(new BoardImpl(), instance);
+        
+        assertEquals(MoveResult.OK, instance.tryMove(1, 1));
+        assertEquals(MoveResult.EMPTY_HOUSE, instance.tryMove(1, 1));
+        
+        for(int i = 1; i < 7; i++) {
+            instance.setSeeds(0, i, 2);
+        }
+        instance.setSeeds(1, 2, 1);
+        assertEquals(MoveResult.STARVATION, instance.tryMove(2, 1));
+        assertEquals(MoveResult.OK, instance.tryMove(6, 1));
+        assertEquals(1, instance.getSeeds(1, 2));
+    }
+
+    /**
+     * Test of makeUndoableMove and unmakeMove methods, of class BoardImpl.
+     */
+    @Test
+    public void testUnmakeMove() throws Exception {
+        
+        System.out.println("unmakeMove");
+        
+        instance.setSeeds(1, 1, 2);
+        instance.setSeeds(12, 6, 1);
+        
+        String expResult = instance.toString();
+        
+        // One lap and one more seed: house 1 of player 2 ends with 3 seeds.
+        int undo = instance.makeUndoableMove(6, 1);
+        assertEquals(3, instance.getScore(1));
+        assertEquals(3, MoveKernel.undoScore(undo));
+        
+        instance.unmakeMove(undo);
+        assertEquals(expResult, instance.toString());
+    }
+
+    /**
+     * Test of getLegalMoves method, of class BoardImpl.
+     */
+    @Test
+    public void testGetLegalMoves() throws Exception {
+        
+        System.out.println("getLegalMoves");
+        
+        assertEquals(0x3F, instance.getLegalMoves(1));
+        
+        instance.setSeeds(0, 2, 1);
+        assertEquals(0x3D, instance.getLegalMoves(1));
+        
+        // Starved opponent: only house 5 (2 seeds) and house 6 reach them.
+        for(int i = 1; i < 7; i++) {
+            instance.setSeeds(1, i, 1);
+            instance.setSeeds(0, i, 2);
+        }
+        instance.setSeeds(0, 2, 1);
+        instance.setSeeds(2, 5, 1);
+        assertEquals(0x30, instance.getLegalMoves(1));
+        
+        // No move can feed them, so every non-empty house is legal.
+        instance.setSeeds(1, 5, 1);
+        instance.setSeeds(0, 6, 1);
+        assertEquals(0x1D, instance.getLegalMoves(1));
+    }
+
+    /**
+     * Test of getCaptureMoves method, of class BoardImpl.
+     */
+    @Test
+    public void testGetCaptureMoves() throws Exception {
+        
+        System.out.println("getCaptureMoves");
+        
+        assertEquals(0, instance.getCaptureMoves(1));
+        
+        // House 3 sows its last seed onto player 2's house 1.
+        instance.setSeeds(1, 1, 2);
+        assertEquals(0x04, instance.getCaptureMoves(1));
+        
+        // House 6 laps the board, adding a seed there before its last one.
+        instance.setSeeds(12, 6, 1);
+        assertEquals(0x24, instance.getCaptureMoves(1));
+        
+        instance.setSeeds(2, 1, 2);
+        assertEquals(0x04, instance.getCaptureMoves(1));
+    }
+
     /**
      * Test of indexToHouseConversion method, of class BoardImpl.
      */
@@ -379,6 +518,25 @@ public class BoardImplTest {
         assertEquals(expResult, result);
     }
 
+    /**
+     * Test of getSideSeeds method, of class BoardImpl.
+     */
+    @Test
+    public void testGetSideSeeds() throws Exception {
+        
+        System.out.println("getSideSeeds");
+        
+        assertEquals(24, instance.getSideSeeds(1));
+        assertEquals(24, instance.getSideSeeds(2));
+        
+        instance.makeMove(6, 1);
+        assertEquals(20, instance.getSideSeeds(1));
+        assertEquals(28, instance.getSideSeeds(2));
+        
+        instance.setSeeds(0, 1, 2);
+        assertEquals(23, instance.getSideSeeds(2));
+    }
+
     /**
      * Test of getScore method, of class BoardImpl.
      */
@@ -439,6 +597,48 @@ public class BoardImplTest {
         assertNotSame(instance, result);
     }
 
+    /**
+     * Test of getPositionKey method, of class BoardImpl.
+     */
+    @Test
+    public void testGetPositionKey() throws Exception {
+        
+        System.out.println("getPositionKey");
+        
+        long key = instance.getPositionKey(1);
+        assertEquals(key, new BoardImpl().getPositionKey(1));
+        assertEquals(key, new PackedBoard().getPositionKey(1));
+        assertTrue(key != instance.getPositionKey(2));
+        
+        // Unlike equals, the key tells scores apart.
+        instance.setScore(50, 1);
+        assertTrue(key != instance.getPositionKey(1));
+        instance.setScore(0, 1);
+        assertEquals(key, instance.getPositionKey(1));
+        
+        // The key kept up by a move matches one counted from scratch.
+        int undo = instance.makeUndoableMove(3, 1);
+        PackedBoard packed = new PackedBoard();
+        packed.makeMove(3, 1);
+        
+        assertEquals(new BoardImpl((Board) instance).getPositionKey(2), 
+                instance.getPositionKey(2));
+        assertEquals(packed.getPositionKey(2), instance.getPositionKey(2));
+        assertTrue(key != instance.getPositionKey(1));
+        
+        instance.unmakeMove(undo);
+        assertEquals(key, instance.getPositionKey(1));
+        
+        // A capture changes the score part of the key as well.
+        instance.setSeeds(1, 6, 1);
+        instance.setSeeds(1, 1, 2);
+        instance.makeMove(6, 1);
+        
+        assertEquals(2, instance.getScore(1));
+        assertEquals(new BoardImpl((Board) instance).getPositionKey(2), 
+                instance.getPositionKey(2));
+    }
+
     /**
      * Test of equals method, of class BoardImpl.
      */
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.io.File;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alistair Madden
+ */
+public class EndgameDatabaseTest {
+    
+    public EndgameDatabaseTest() {
+    }
+
+    /**
+     * Test that unrank inverts rank for every arrangement of a few seeds.
+     */
+    @Test
+    public void testRank() {
+        
+        System.out.println("rank");
+        
+        int[] houses = new int[12];
+        
+        for(int seeds = 0; seeds < 5; seeds++) {
+            for(long rank = 0; rank < EndgameDatabase.size(seeds); rank++) {
+                EndgameDatabase.unrank(rank, seeds, houses);
+                assertEquals(rank, EndgameDatabase.rank(houses, 0, seeds));
+            }
+        }
+        
+        assertEquals(1352078, EndgameDatabase.size(12));
+    }
+
+    /**
+     * Test that a built database maps and gives known values.
+     */
+    @Test
+    public void testBuildAndProbe() throws Exception {
+        
+        System.out.println("build and probe");
+        
+        File file = File.createTempFile("endgame", ".db");
+        file.deleteOnExit();
+        
+        EndgameBuilder builder = new EndgameBuilder(4, 2);
+        builder.build();
+        builder.write(file);
+        
+        EndgameDatabase instance = new EndgameDatabase(file);
+        int[] houses = new int[12];
+        
+        assertEquals(4, instance.getMaxSeeds());
+        
+        // Player 1 cannot move, so player 2 takes their 3 seeds.
+        houses[8] = 3;
+        assertEquals(-3, instance.probe(houses, 1));
+        
+        // Player 2 sows 1 seed onto a house of 2 and captures 3.
+        houses[8] = 0;
+        houses[11] = 1;
+        houses[0] = 2;
+        assertEquals(3, instance.probe(houses, 2));
+        
+        houses[5] = 5;
+        assertEquals(EndgameDatabase.UNKNOWN, instance.probe(houses, 1));
+    }
+}
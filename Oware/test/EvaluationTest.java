@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.io.File;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alistair Madden
+ */
+public class EvaluationTest {
+    
+    Evaluation instance;
+    
+    public EvaluationTest() {
+    }
+    
+    @Before
+    public void setUp() {
+        instance = new Evaluation(new int[] {100, 10, 50, 20});
+    }
+
+    /**
+     * Test that the evaluation is the dot product of the weights with the
+     * features, from the point of view of the player to move.
+     */
+    @Test
+    public void testEvaluate() throws Exception {
+        
+        System.out.println("evaluate");
+        
+        BoardImpl board = new BoardImpl();
+        assertEquals(0, instance.evaluate(board, 1));
+        
+        board.setScore(3, 1);
+        board.setSeeds(1, 2, 1);
+        board.setSeeds(2, 3, 1);
+        board.setSeeds(13, 4, 2);
+        
+        int[] features = new int[Evaluation.FEATURES];
+        Evaluation.features(board, 1, features);
+        assertArrayEquals(new int[] {3, -14, 2, -1}, features);
+        
+        int expected = 100 * 3 - 10 * 14 + 50 * 2 - 20;
+        assertEquals(expected, instance.evaluate(board, 1));
+        assertEquals(-expected, instance.evaluate(board, 2));
+    }
+
+    /**
+     * Test that the features kept by the board follow moves and their undo.
+     */
+    @Test
+    public void testIncrementalFeatures() throws Exception {
+        
+        System.out.println("incremental features");
+        
+        BoardImpl board = new BoardImpl();
+        board.setSeeds(14, 6, 1);
+        board.setSeeds(1, 1, 2);
+        
+        int before = instance.evaluate(board, 1);
+        int undo = board.makeUndoableMove(6, 1);
+        
+        // Compare with a board whose features are counted from scratch.
+        assertEquals(instance.evaluate(new BoardImpl(board), 2), 
+                instance.evaluate(board, 2));
+        assertEquals(0, board.getKrooHouses(1));
+        
+        board.unmakeMove(undo);
+        assertEquals(before, instance.evaluate(board, 1));
+        assertEquals(1, board.getKrooHouses(1));
+        assertEquals(1, board.getVulnerableHouses(2));
+    }
+
+    /**
+     * Test that weights written to a file are read back.
+     */
+    @Test
+    public void testReadWrite() throws Exception {
+        
+        System.out.println("read/write");
+        
+        File file = File.createTempFile("weights", ".properties");
+        file.deleteOnExit();
+        
+        instance.write(file);
+        
+        assertArrayEquals(instance.getWeights(), 
+                Evaluation.read(file).getWeights());
+    }
+
+    /**
+     * Test that weights which could reach a win score are rejected.
+     */
+    @Test
+    public void testLargeWeights() {
+        
+        System.out.println("large weights");
+        
+        // 48 seeds ahead at 400 scores 19200, short of a win.
+        new Evaluation(new int[] {400, 0, 0, 0});
+        
+        try {
+            new Evaluation(new int[] {0, 0, -4000, 0});
+            fail("weights reaching a win score should be rejected");
+        }
+        catch(IllegalArgumentException ex) {
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alistair Madden
+ */
+public class EvaluationTunerTest {
+    
+    public EvaluationTunerTest() {
+    }
+
+    /**
+     * Test that tuning finds the weight of a feature that predicts results.
+     */
+    @Test
+    public void testTune() throws Exception {
+        
+        System.out.println("tune");
+        
+        EvaluationTuner instance = new EvaluationTuner(2);
+        int[] position = new int[Evaluation.FEATURES];
+        
+        // More seeds on their side usually wins for the player to move.
+        for(int i = 0; i < 1000; i++) {
+            position[Evaluation.SEEDS] = i % 2 == 0 ? 6 : -6;
+            instance.add(position, i % 2 == 0 ? (i % 10 == 0 ? 0 : 2) : 0);
+        }
+        
+        int[] start = {SearchEngine.SEED_VALUE, 0, 0, 0};
+        int[] tuned = instance.tune(start, 200);
+        
+        assertEquals(SearchEngine.SEED_VALUE, tuned[Evaluation.SCORE]);
+        assertTrue(tuned[Evaluation.SEEDS] > 0);
+        assertTrue(instance.error(tuned) < instance.error(start));
+        
+        instance.shutdown();
+    }
+
+    /**
+     * Test that a positions file is read into features and results.
+     */
+    @Test
+    public void testRead() throws Exception {
+        
+        System.out.println("read");
+        
+        File file = File.createTempFile("positions", ".txt");
+        file.deleteOnExit();
+        
+        // A drawn start, then player 2 to move in a game player 1 won.
+        try(PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            out.println("4 4 4 4 4 4 4 4 4 4 4 4 0 0 1 0");
+            out.println("1 2 0 0 0 13 0 0 0 0 0 3 20 9 2 1");
+        }
+        
+        EvaluationTuner instance = new EvaluationTuner(1);
+        instance.read(file);
+        
+        assertEquals(2, instance.size());
+        assertEquals(1, instance.getScale(), 0);
+        
+        // The drawn start always scores one half, so the error is half the
+        // second position's. For player 2 its score difference is -11, seeds
+        // 3 - 16, houses with 1 or 2 seeds 0 - 2 and kroos 0 - 1, and a
+        // weight of one seed on a feature predicts sigmoid(feature).
+        int[] features = {-11, -13, -2, -1};
+        
+        for(int i = 0; i < Evaluation.FEATURES; i++) {
+            int[] weights = new int[Evaluation.FEATURES];
+            weights[i] = SearchEngine.SEED_VALUE;
+            
+            double predicted = 1 / (1 + Math.exp(-features[i]));
+            
+            assertEquals(predicted * predicted / 2, instance.error(weights),
+                    1e-12);
+        }
+        
+        instance.shutdown();
+    }
+
+    /**
+     * Test that a line which is not a position is rejected.
+     */
+    @Test
+    public void testReadMalformed() throws Exception {
+        
+        System.out.println("read malformed");
+        
+        String[] lines = {
+            "4 4 4 4 4 4 4 4 4 4 4 x 0 0 1 0",
+            "4 4 4 4 4 4 4 4 4 4 4 4 0 0 1"
+        };
+        
+        for(String line : lines) {
+            File file = File.createTempFile("positions", ".txt");
+            file.deleteOnExit();
+            
+            try(PrintWriter out = new PrintWriter(new FileWriter(file))) {
+                out.println(line);
+            }
+            
+            EvaluationTuner instance = new EvaluationTuner(1);
+            
+            try {
+                instance.read(file);
+                fail("read should reject " + line);
+            }
+            catch(IOException ex) {
+            }
+            finally {
+                instance.shutdown();
+            }
+        }
+    }
+}
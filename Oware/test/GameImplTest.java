@@ -19,6 +19,11 @@
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.junit.After;
@@ -63,6 +68,118 @@ public class GameImplTest {
     public void tearDown() {
     }
     
+    /**
+     * A player that plays the houses it is given, in order, without reading
+     * input or printing prompts.
+     */
+    private static class ScriptedPlayer implements Player {
+        
+        private final int[] moves;
+        private int next;
+        
+        ScriptedPlayer(int... moves) {
+            this.moves = moves;
+        }
+        
+        @Override
+        public int getMove(Board b, int playerNum) {
+            return moves[next++];
+        }
+        
+        @Override
+        public boolean isComputer() {
+            return false;
+        }
+        
+        @Override
+        public void setIn(InputStream in) {
+        }
+        
+        @Override
+        public void setOut(PrintStream out) {
+        }
+    }
+    
+    /**
+     * A player that plays random legal moves from a fixed seed, or a chosen
+     * move when it is given one.
+     */
+    private static class RandomPlayer implements Player {
+        
+        private final Random random;
+        private int chosen;
+        
+        RandomPlayer(long seed) {
+            random = new Random(seed);
+        }
+        
+        void playNext(int house) {
+            chosen = house;
+        }
+        
+        @Override
+        public int getMove(Board b, int playerNum) {
+            int legal = b.getLegalMoves(playerNum);
+            int house = chosen;
+            
+            chosen = 0;
+            
+            while(house == 0 || (legal & (1 << (house - 1))) == 0) {
+                house = 1 + random.nextInt(6);
+            }
+            return house;
+        }
+        
+        @Override
+        public boolean isComputer() {
+            return false;
+        }
+        
+        @Override
+        public void setIn(InputStream in) {
+        }
+        
+        @Override
+        public void setOut(PrintStream out) {
+        }
+    }
+    
+    /**
+     * Plays moves until the game reaches a ply or finishes, recording the
+     * board after each one.
+     */
+    private static void playTo(GameImpl game, int ply, List<Board> boards)
+            throws Exception {
+        
+        while(game.getPly() < ply) {
+            int before = game.getPly();
+            
+            game.nextMove();
+            
+            if(game.getPly() == before) {
+                break;
+            }
+            boards.add(game.getCurrentBoard().clone());
+        }
+    }
+    
+    /**
+     * Checks every board the game can replay against the recorded ones,
+     * scores included.
+     */
+    private static void assertReplays(GameImpl game, List<Board> boards) {
+        
+        assertEquals(boards.size() - 1, game.getHistoryLength());
+        
+        for(int ply = 0; ply < boards.size(); ply++) {
+            Board board = game.getPreviousBoard(ply);
+            
+            assertEquals("ply " + ply, boards.get(ply), board);
+            assertEquals("ply " + ply, boards.get(ply).getPositionKey(1), 
+                    board.getPositionKey(1));
+        }
+    }
+    
     /**
      * Method to make the move declared in testMove.txt.
      */
@@ -204,6 +321,147 @@ public class GameImplTest {
         assertEquals(expResult, result);
     }
 
+    /**
+     * Test of getPreviousBoard method, of class GameImpl.
+     */
+    @Test
+    public void testGetPreviousBoard() throws Exception {
+        
+        System.out.println("getPreviousBoard");
+        
+        GameImpl game = new GameImpl(new ScriptedPlayer(1), 
+                new ScriptedPlayer(1));
+        
+        assertEquals(0, game.getPly());
+        
+        game.nextMove();
+        
+        assertEquals(1, game.getPly());
+        assertEquals(new BoardImpl(), game.getPreviousBoard(0));
+        assertEquals(game.getCurrentBoard(), game.getPreviousBoard(1));
+    }
+
+    /**
+     * Test that boards past the first checkpoints are replayed, before and
+     * after going back and playing a different move.
+     */
+    @Test
+    public void testGetPreviousBoardPastCheckpoints() throws Exception {
+        
+        System.out.println("getPreviousBoard past checkpoints");
+        
+        int interval = MoveLog.CHECKPOINT_INTERVAL;
+        RandomPlayer player1 = new RandomPlayer(1);
+        GameImpl game = new GameImpl(player1, new RandomPlayer(2));
+        List<Board> boards = new ArrayList<>();
+        
+        boards.add(game.getCurrentBoard().clone());
+        playTo(game, 2 * interval + 6, boards);
+        
+        assertEquals(2 * interval + 6, game.getPly());
+        assertReplays(game, boards);
+        
+        // Go back between the second and third checkpoints and play a
+        // different move, which drops the third checkpoint.
+        int branch = interval + 8;
+        game.seekToPly(branch);
+        assertEquals(boards.get(branch), game.getCurrentBoard());
+        assertEquals(1, game.getCurrentPlayerNum());
+        
+        Board next = boards.get(branch + 1);
+        
+        for(int house = 1; house < 7; house++) {
+            Board board = boards.get(branch).clone();
+            
+            if(board.tryMove(house, 1) == MoveResult.OK && 
+                    board.getPositionKey(2) != next.getPositionKey(2)) {
+                player1.playNext(house);
+                break;
+            }
+        }
+        
+        boards.subList(branch + 1, boards.size()).clear();
+        playTo(game, branch + 1, boards);
+        
+        assertEquals(branch + 1, game.getHistoryLength());
+        assertFalse(next.getPositionKey(2) == 
+                game.getCurrentBoard().getPositionKey(2));
+        
+        playTo(game, 2 * interval + 6, boards);
+        assertReplays(game, boards);
+    }
+
+    /**
+     * Test of undo, redo and seekToPly methods, of class GameImpl.
+     */
+    @Test
+    public void testUndoRedo() throws Exception {
+        
+        System.out.println("undo/redo");
+        
+        GameImpl game = new GameImpl(new ScriptedPlayer(1, 1, 2), 
+                new ScriptedPlayer(1));
+        
+        assertFalse(game.undo());
+        
+        game.nextMove();
+        Board afterMove = game.getCurrentBoard().clone();
+        
+        assertTrue(game.undo());
+        assertEquals(0, game.getPly());
+        assertEquals(1, game.getCurrentPlayerNum());
+        assertEquals(new BoardImpl(), game.getCurrentBoard());
+        
+        assertTrue(game.redo());
+        assertFalse(game.redo());
+        assertEquals(2, game.getCurrentPlayerNum());
+        assertEquals(afterMove, game.getCurrentBoard());
+        
+        game.nextMove();
+        assertEquals(2, game.getHistoryLength());
+        
+        game.seekToPly(0);
+        assertEquals(new BoardImpl(), game.getCurrentBoard());
+        assertEquals(2, game.getHistoryLength());
+        
+        // Playing the move that was taken back keeps the moves after it.
+        game.nextMove();
+        assertEquals(afterMove, game.getCurrentBoard());
+        assertEquals(2, game.getHistoryLength());
+        
+        // Playing a different move discards them.
+        game.seekToPly(0);
+        game.nextMove();
+        assertEquals(1, game.getHistoryLength());
+        assertFalse(game.redo());
+    }
+
+    /**
+     * Test of forfeit method, of class GameImpl.
+     */
+    @Test
+    public void testForfeit() throws Exception {
+        
+        System.out.println("forfeit");
+        
+        GameImpl game = new GameImpl(new ScriptedPlayer(1), 
+                new ScriptedPlayer(1));
+        
+        assertEquals(0, game.getForfeited());
+        
+        game.nextMove();
+        game.forfeit(2);
+        
+        // The player who forfeits loses whatever the score.
+        assertEquals(2, game.getForfeited());
+        assertEquals(1, game.getResult());
+        
+        // Going back in the game takes the forfeit back too.
+        game.seekToPly(0);
+        assertEquals(0, game.getForfeited());
+        assertEquals(-1, game.getResult());
+    }
+
     /**
      * Test of nextMove method, of class GameImpl.
      */
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alistair Madden
+ */
+public class GameRendererTest {
+    
+    GameRenderer instance;
+    BoardImpl board;
+    
+    public GameRendererTest() {
+    }
+    
+    @Before
+    public void setUp() {
+        instance = new GameRenderer();
+        board = new BoardImpl();
+    }
+    
+    /**
+     * Test that the frame shows the scores, the player to move and every
+     * house.
+     */
+    @Test
+    public void testRender() {
+        
+        System.out.println("render");
+        
+        String result = instance.render(board, 2, "Ann", "Bob");
+        
+        assertTrue(result.startsWith("Ann: 0\nBob: 0\nBob to play.\n\n"));
+        assertTrue(result.contains("House 1 contains 4 seeds\n"));
+        assertTrue(result.endsWith("House 12 contains 4 seeds\n"));
+    }
+    
+    /**
+     * Test that an unchanged state reuses the last frame.
+     */
+    @Test
+    public void testFrameReused() {
+        
+        System.out.println("frame reused");
+        
+        String first = instance.render(board, 1, "Ann", "Bob");
+        
+        assertSame(first, instance.render(board, 1, "Ann", "Bob"));
+        
+        // An equal board is the same position.
+        assertSame(first, instance.render(new BoardImpl(), 1, "Ann", "Bob"));
+    }
+    
+    /**
+     * Test that a move, a change of side or of name renders a new frame.
+     */
+    @Test
+    public void testFrameRebuilt() throws Exception {
+        
+        System.out.println("frame rebuilt");
+        
+        String first = instance.render(board, 1, "Ann", "Bob");
+        
+        String otherSide = instance.render(board, 2, "Ann", "Bob");
+        assertTrue(otherSide.contains("Bob to play."));
+        
+        String renamed = instance.render(board, 2, "Ann", "Cy");
+        assertTrue(renamed.startsWith("Ann: 0\nCy: 0\nCy to play."));
+        
+        board.makeMove(1, 1);
+        String moved = instance.render(board, 2, "Ann", "Cy");
+        assertTrue(moved.contains("House 1 contains 0 seeds\n"));
+        assertTrue(moved.contains("House 2 contains 5 seeds\n"));
+        
+        assertFalse(first.equals(otherSide));
+        assertFalse(otherSide.equals(renamed));
+        assertFalse(renamed.equals(moved));
+    }
+    
+    /**
+     * Test that the game's rendering follows moves, seeks and name changes.
+     */
+    @Test
+    public void testGameToString() throws Exception {
+        
+        System.out.println("game toString");
+        
+        HumanPlayer player1 = new HumanPlayer();
+        player1.setIn(new ByteArrayInputStream("1\n".getBytes("US-ASCII")));
+        player1.setOut(new PrintStream(new ByteArrayOutputStream()));
+        
+        GameImpl game = new GameImpl(player1, new HumanPlayer());
+        game.setPlayerName(1, "Ann");
+        game.setPlayerName(2, "Bob");
+        
+        String start = game.toString();
+        assertSame(start, game.toString());
+        
+        game.nextMove();
+        String moved = game.toString();
+        assertTrue(moved.contains("Bob to play."));
+        assertTrue(moved.contains("House 1 contains 0 seeds\n"));
+        assertSame(moved, game.toString());
+        
+        game.seekToPly(0);
+        assertEquals(start, game.toString());
+        
+        game.setPlayerName(1, "Cy");
+        assertTrue(game.toString().startsWith("Cy: 0\n"));
+    }
+
+}
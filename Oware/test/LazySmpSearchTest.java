@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alistair Madden
+ */
+public class LazySmpSearchTest {
+
+    /**
+     * Test that a search on several threads returns a legal move by the
+     * deadline, counts the helpers' nodes and leaves the position unchanged.
+     */
+    @Test
+    public void testSearch() throws Exception {
+        
+        System.out.println("search");
+        
+        BoardImpl board = new BoardImpl();
+        board.makeMove(3, 1);
+        board.makeMove(5, 2);
+        Board before = board.clone();
+        
+        LazySmpSearch instance = new LazySmpSearch(3);
+        assertEquals(3, instance.getThreads());
+        
+        long deadline = System.nanoTime() + 200000000L;
+        int move = instance.search(board, 1, deadline);
+        
+        // The engines check the clock often, so they stop soon after it.
+        assertTrue(System.nanoTime() - deadline < 200000000L);
+        assertTrue((board.getLegalMoves(1) & (1 << (move - 1))) != 0);
+        
+        assertTrue(instance.getHelperNodes() > 0);
+        assertTrue(instance.getNodes() > instance.getHelperNodes());
+        assertTrue(instance.getCompletedDepth() > 0);
+        assertEquals(before, board);
+        assertEquals(before.getPositionKey(1), board.getPositionKey(1));
+        
+        instance.shutdown();
+    }
+
+    /**
+     * Test that a search can be run again and that shutting down ends the
+     * helper threads.
+     */
+    @Test
+    public void testSearchAgainAndShutdown() throws Exception {
+        
+        System.out.println("search again and shutdown");
+        
+        Set<Thread> existing = helperThreads();
+        LazySmpSearch instance = new LazySmpSearch(3);
+        BoardImpl board = new BoardImpl();
+        
+        int first = instance.search(board, 1, System.nanoTime() + 
+                100000000L);
+        int second = instance.search(board, 2, System.nanoTime() + 
+                100000000L);
+        
+        assertTrue((board.getLegalMoves(1) & (1 << (first - 1))) != 0);
+        assertTrue((board.getLegalMoves(2) & (1 << (second - 1))) != 0);
+        assertTrue(instance.getHelperNodes() > 0);
+        
+        Set<Thread> started = helperThreads();
+        started.removeAll(existing);
+        assertEquals(2, started.size());
+        
+        instance.shutdown();
+        
+        for(Thread thread : started) {
+            thread.join(1000);
+            assertFalse(thread.isAlive());
+        }
+    }
+    
+    private static Set<Thread> helperThreads() {
+        Set<Thread> threads = new HashSet<>();
+        
+        for(Thread thread : Thread.getAllStackTraces().keySet()) {
+            if(thread.getName().equals("oware-search-helper")) {
+                threads.add(thread);
+            }
+        }
+        return threads;
+    }
+}
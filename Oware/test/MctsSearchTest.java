@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alistair Madden
+ */
+public class MctsSearchTest {
+    
+    MctsSearch instance;
+    
+    public MctsSearchTest() {
+    }
+    
+    @Before
+    public void setUp() {
+        instance = new MctsSearch(2, 1 << 16);
+    }
+    
+    @After
+    public void tearDown() {
+        instance.shutdown();
+    }
+
+    /**
+     * Test that search finds a capture that wins the game.
+     */
+    @Test
+    public void testSearchFindsWin() throws Exception {
+        
+        System.out.println("search finds win");
+        
+        BoardImpl board = new BoardImpl();
+        
+        for(int house = 1; house < 7; house++) {
+            board.setSeeds(0, house, 1);
+            board.setSeeds(0, house, 2);
+        }
+        
+        // House 6 sows into two houses holding one seed, capturing 4.
+        board.setSeeds(1, 1, 1);
+        board.setSeeds(2, 6, 1);
+        board.setSeeds(1, 1, 2);
+        board.setSeeds(1, 2, 2);
+        board.setSeeds(5, 6, 2);
+        board.setScore(23, 1);
+        
+        Board before = board.clone();
+        int move = instance.search(board, 1, System.nanoTime() + 
+                200000000L);
+        
+        assertEquals(6, move);
+        assertEquals(1000, instance.getBestScore());
+        assertTrue(instance.getNodes() > 0);
+        assertEquals(before, board);
+        
+        // The win decides the root, so a long search stops straight away.
+        long start = System.nanoTime();
+        move = instance.search(board, 1, start + 10000000000L);
+        
+        assertEquals(6, move);
+        assertTrue(System.nanoTime() - start < 2000000000L);
+    }
+
+    /**
+     * Test that a full tree still gives a legal move.
+     */
+    @Test
+    public void testSearchWithFullTree() throws Exception {
+        
+        System.out.println("search with full tree");
+        
+        MctsSearch small = new MctsSearch(1, 7);
+        BoardImpl board = new BoardImpl();
+        
+        int move = small.search(board, 2, System.nanoTime() + 50000000L);
+        
+        assertTrue((board.getLegalMoves(2) & (1 << (move - 1))) != 0);
+        assertEquals(7, small.getTreeSize());
+        small.shutdown();
+    }
+}
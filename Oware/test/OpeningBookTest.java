@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.io.File;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alistair Madden
+ */
+public class OpeningBookTest {
+    
+    public OpeningBookTest() {
+    }
+
+    /**
+     * Test that a written book returns the heaviest move of a position and
+     * nothing for positions it does not hold.
+     */
+    @Test
+    public void testLookup() throws Exception {
+        
+        System.out.println("lookup");
+        
+        File file = File.createTempFile("opening", ".book");
+        file.deleteOnExit();
+        
+        BookBuilder builder = new BookBuilder(4);
+        builder.add(-5L, 2, 1);
+        builder.add(7L, 3, 5);
+        builder.add(7L, 5, 2);
+        builder.add(7L, 5, 4);
+        builder.write(file);
+        
+        OpeningBook instance = new OpeningBook(file);
+        
+        assertEquals(3, instance.size());
+        assertEquals(2, instance.lookup(-5L));
+        assertEquals(5, instance.lookup(7L));
+        assertEquals(0, instance.lookup(6L));
+        assertEquals(0, instance.lookup(Long.MAX_VALUE));
+    }
+
+    /**
+     * Test that an explored book holds a legal move for the start position of
+     * either side.
+     */
+    @Test
+    public void testExplore() throws Exception {
+        
+        System.out.println("explore");
+        
+        File file = File.createTempFile("opening", ".book");
+        file.deleteOnExit();
+        
+        BookBuilder builder = new BookBuilder(4);
+        builder.explore(2);
+        builder.write(file);
+        
+        OpeningBook instance = new OpeningBook(file);
+        Board board = new BoardImpl();
+        int move = instance.lookup(board.getPositionKey(1));
+        
+        assertTrue(move >= 1 && move <= 6);
+        
+        // Player 2's replies to every first move are in the book.
+        for(int house = 1; house < 7; house++) {
+            Board reply = board.clone();
+            reply.makeMove(house, 1);
+            assertTrue(instance.lookup(reply.getPositionKey(2)) != 0);
+        }
+    }
+}
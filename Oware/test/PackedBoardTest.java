@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alistair Madden
+ */
+public class PackedBoardTest {
+
+    PackedBoard instance;
+
+    public PackedBoardTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        instance = new PackedBoard();
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of makeMove method, of class PackedBoard.
+     */
+    @Test
+    public void testMakeMove() throws Exception {
+
+        System.out.println("makeMove");
+        int house = 1;
+        int playerNum = 1;
+
+        instance.makeMove(house, playerNum);
+
+        PackedBoard expResult = new PackedBoard();
+        expResult.setSeeds(0, house, playerNum);
+        expResult.setSeeds(5, 2, playerNum);
+        expResult.setSeeds(5, 3, playerNum);
+        expResult.setSeeds(5, 4, playerNum);
+        expResult.setSeeds(5, 5, playerNum);
+
+        assertEquals(expResult, instance);
+    }
+
+    /**
+     * Test of makeMove method with a capture, of class PackedBoard.
+     */
+    @Test
+    public void testMakeMoveCapture() throws Exception {
+
+        System.out.println("makeMove capture");
+
+        for(int i = 1; i < 7; i++) {
+            instance.setSeeds(0, i, 1);
+            instance.setSeeds(0, i, 2);
+        }
+        instance.setSeeds(2, 6, 1);
+        instance.setSeeds(1, 1, 2);
+        instance.setSeeds(2, 2, 2);
+        instance.setSeeds(1, 3, 2);
+
+        instance.makeMove(6, 1);
+
+        assertEquals(5, instance.getScore(1));
+        assertEquals(0, instance.getSeeds(1, 2));
+        assertEquals(0, instance.getSeeds(2, 2));
+        assertEquals(1, instance.getSeeds(3, 2));
+    }
+
+    /**
+     * Test of makeMove method with a full lap, of class PackedBoard.
+     */
+    @Test
+    public void testMakeMoveLap() throws Exception {
+
+        System.out.println("makeMove lap");
+
+        instance.setSeeds(12, 3, 1);
+        instance.makeMove(3, 1);
+
+        // The origin house is skipped, so the twelfth seed lands in house 4.
+        assertEquals(0, instance.getSeeds(3, 1));
+        assertEquals(6, instance.getSeeds(4, 1));
+        assertEquals(5, instance.getSeeds(5, 1));
+        assertEquals(5, instance.getSeeds(2, 1));
+        assertEquals(5, instance.getSeeds(6, 2));
+    }
+
+    /**
+     * Test of getSeeds method, of class PackedBoard.
+     */
+    @Test
+    public void testGetSeeds() throws Exception {
+
+        System.out.println("getSeeds");
+
+        instance.setSeeds(4, 1, 1);
+        instance.setSeeds(6, 2, 1);
+        instance.setSeeds(9, 4, 1);
+        instance.setSeeds(0, 2, 2);
+        instance.setSeeds(56, 6, 2);
+
+        assertEquals(4, instance.getSeeds(1, 1));
+        assertEquals(6, instance.getSeeds(2, 1));
+        assertEquals(9, instance.getSeeds(4, 1));
+        assertEquals(0, instance.getSeeds(2, 2));
+        assertEquals(56, instance.getSeeds(6, 2));
+        assertEquals(4, instance.getSeeds(5, 2));
+    }
+
+    /**
+     * Test of sowSeed method, of class PackedBoard.
+     */
+    @Test
+    public void testSowSeed() throws Exception {
+
+        System.out.println("sowSeed");
+        instance.sowSeed(1, 1);
+
+        assertEquals(5, instance.getSeeds(1, 1));
+        assertEquals(4, instance.getSeeds(2, 1));
+    }
+
+    /**
+     * Test of addScore and setScore methods, of class PackedBoard.
+     */
+    @Test
+    public void testScore() {
+
+        System.out.println("score");
+
+        instance.addScore(666, 1);
+        assertEquals(666, instance.getScore(1));
+        assertEquals(0, instance.getScore(2));
+
+        instance.setScore(5, 1);
+        assertEquals(5, instance.getScore(1));
+    }
+
+    /**
+     * Test of clone method, of class PackedBoard.
+     */
+    @Test
+    public void testClone() {
+
+        System.out.println("clone");
+
+        Board result = instance.clone();
+        assertEquals(instance, result);
+
+        assertNotSame(instance, result);
+    }
+
+    /**
+     * Test of equals method, of class PackedBoard.
+     */
+    @Test
+    public void testEquals() throws InvalidHouseException {
+
+        System.out.println("equals");
+
+        PackedBoard instance2 = new PackedBoard();
+
+        assertEquals(false, instance.equals(null));
+        assertEquals(instance, instance2);
+
+        instance2.setScore(50, 1);
+        assertEquals(true, instance.equals(instance2));
+
+        instance2.setSeeds(5, 1, 1);
+        assertEquals(false, instance.equals(instance2));
+    }
+
+    /**
+     * Test of toString method, of class PackedBoard.
+     */
+    @Test
+    public void testToString() {
+
+        System.out.println("toString");
+
+        assertEquals(new BoardImpl().toString(), instance.toString());
+    }
+
+}
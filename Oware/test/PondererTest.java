@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alistair Madden
+ */
+public class PondererTest {
+    
+    public PondererTest() {
+    }
+
+    /**
+     * Test that pondering runs until stopped and leaves the positions after
+     * the opponent's replies in the table.
+     */
+    @Test
+    public void testPonder() throws Exception {
+        
+        System.out.println("ponder");
+        
+        TranspositionTable table = new TranspositionTable(1,
+                ReplacementPolicy.DEPTH_PREFERRED_AND_ALWAYS);
+        Ponderer instance = new Ponderer(table);
+        BoardImpl board = new BoardImpl();
+        board.makeMove(3, 1);
+        
+        instance.start(board, 2);
+        Thread.sleep(100);
+        
+        assertTrue(instance.isPondering());
+        assertTrue(instance.stop() > 0);
+        assertFalse(instance.isPondering());
+        
+        // The position after a reply is ready for the next search.
+        board.makeMove(1, 2);
+        assertTrue(TranspositionTable.bound(
+                table.probe(board.getPositionKey(1))) != 0);
+        
+        instance.shutdown();
+    }
+
+    /**
+     * Test that nothing is searched once the game is over.
+     */
+    @Test
+    public void testGameOver() throws Exception {
+        
+        System.out.println("game over");
+        
+        Ponderer instance = new Ponderer(new TranspositionTable(1,
+                ReplacementPolicy.DEPTH_PREFERRED_AND_ALWAYS));
+        BoardImpl board = new BoardImpl();
+        board.setScore(25, 1);
+        
+        instance.start(board, 2);
+        
+        assertFalse(instance.isPondering());
+        assertEquals(0, instance.stop());
+        
+        instance.shutdown();
+    }
+
+    /**
+     * Test that shutting a computer player down ends its ponder thread.
+     */
+    @Test
+    public void testPlayerShutdown() throws Exception {
+        
+        System.out.println("player shutdown");
+        
+        ComputerPlayer player = new ComputerPlayer();
+        player.setMoveTime(50);
+        player.setPondering(true);
+        player.getMove(new BoardImpl(), 1);
+        
+        assertFalse(ponderThreads().isEmpty());
+        
+        player.shutdown();
+        
+        for(Thread thread : ponderThreads()) {
+            thread.join(1000);
+            assertFalse(thread.isAlive());
+        }
+    }
+    
+    private static List<Thread> ponderThreads() {
+        List<Thread> threads = new ArrayList<>();
+        
+        for(Thread thread : Thread.getAllStackTraces().keySet()) {
+            if(thread.getName().equals("oware-ponder")) {
+                threads.add(thread);
+            }
+        }
+        return threads;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alistair Madden
+ */
+public class ReadOnlyBoardTest {
+    
+    BoardImpl board;
+    ReadOnlyBoard instance;
+    
+    public ReadOnlyBoardTest() {
+    }
+    
+    @Before
+    public void setUp() {
+        board = new BoardImpl();
+        instance = new ReadOnlyBoard(board);
+    }
+
+    /**
+     * Test that reads pass through to the viewed board.
+     */
+    @Test
+    public void testReads() throws Exception {
+        
+        System.out.println("reads");
+        
+        board.setSeeds(7, 2, 1);
+        board.setScore(3, 2);
+        
+        assertEquals(7, instance.getSeeds(2, 1));
+        assertEquals(3, instance.getScore(2));
+        assertEquals(board.getPositionKey(1), instance.getPositionKey(1));
+        assertEquals(board.toString(), instance.toString());
+    }
+
+    /**
+     * Test that mutators throw and leave the board unchanged.
+     */
+    @Test
+    public void testMutatorsThrow() throws Exception {
+        
+        System.out.println("mutators");
+        
+        try {
+            instance.makeMove(1, 1);
+            fail("makeMove should throw");
+        }
+        catch(UnsupportedOperationException ex) {
+        }
+        
+        try {
+            instance.setSeeds(0, 1, 1);
+            fail("setSeeds should throw");
+        }
+        catch(UnsupportedOperationException ex) {
+        }
+        
+        assertEquals(new BoardImpl(), board);
+    }
+
+    /**
+     * Test that clone gives a mutable copy independent of the board.
+     */
+    @Test
+    public void testClone() throws Exception {
+        
+        System.out.println("clone");
+        
+        Board copy = instance.clone();
+        copy.makeMove(1, 1);
+        
+        assertEquals(new BoardImpl(), board);
+        assertEquals(0, copy.getSeeds(1, 1));
+    }
+
+    /**
+     * Test that a view and its board are equal whichever side is asked.
+     */
+    @Test
+    public void testEquals() throws Exception {
+        
+        System.out.println("equals");
+        
+        assertTrue(instance.equals(board));
+        assertTrue(board.equals(instance));
+        assertTrue(new BoardImpl().equals(instance));
+        assertEquals(board.hashCode(), instance.hashCode());
+        
+        board.makeMove(1, 1);
+        
+        assertFalse(new BoardImpl().equals(instance));
+        assertFalse(instance.equals(new BoardImpl()));
+    }
+    
+}
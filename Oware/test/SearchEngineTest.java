@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alistair Madden
+ */
+public class SearchEngineTest {
+    
+    SearchEngine instance;
+    
+    public SearchEngineTest() {
+    }
+    
+    @Before
+    public void setUp() {
+        instance = new SearchEngine();
+    }
+
+    /**
+     * Test that search finds a capture that wins the game.
+     */
+    @Test
+    public void testSearchFindsWin() throws Exception {
+        
+        System.out.println("search finds win");
+        
+        BoardImpl board = new BoardImpl();
+        
+        for(int house = 1; house < 7; house++) {
+            board.setSeeds(0, house, 1);
+            board.setSeeds(0, house, 2);
+        }
+        
+        // House 6 sows into two houses holding one seed, capturing 4.
+        board.setSeeds(1, 1, 1);
+        board.setSeeds(2, 6, 1);
+        board.setSeeds(1, 1, 2);
+        board.setSeeds(1, 2, 2);
+        board.setSeeds(5, 6, 2);
+        board.setScore(23, 1);
+        
+        Board before = board.clone();
+        int move = instance.search(board, 1, System.nanoTime() + 
+                1000000000L);
+        
+        assertEquals(6, move);
+        assertTrue(instance.getBestScore() >= 
+                SearchEngine.WIN - SearchEngine.MAX_PLY);
+        assertEquals(before, board);
+    }
+
+    /**
+     * Test that search returns a legal move and counts nodes.
+     */
+    @Test
+    public void testSearchFromStart() throws Exception {
+        
+        System.out.println("search from start");
+        
+        BoardImpl board = new BoardImpl();
+        int move = instance.search(board, 1, System.nanoTime() + 
+                1000000000L, 4);
+        
+        assertTrue((board.getLegalMoves(1) & (1 << (move - 1))) != 0);
+        assertEquals(4, instance.getCompletedDepth());
+        assertTrue(instance.getNodes() > 0);
+    }
+
+    /**
+     * Test that move ordering changes how the search prunes but not its
+     * result, and that it counts the cutoffs made by the first move.
+     */
+    @Test
+    public void testMoveOrdering() throws Exception {
+        
+        System.out.println("move ordering");
+        
+        BoardImpl board = new BoardImpl();
+        SearchEngine unordered = new SearchEngine();
+        unordered.setMoveOrdering(false);
+        unordered.setEndgameDatabase(null);
+        instance.setEndgameDatabase(null);
+        
+        unordered.search(board, 1, Long.MAX_VALUE, 8);
+        instance.search(board, 1, Long.MAX_VALUE, 8);
+        
+        assertEquals(unordered.getBestScore(), instance.getBestScore());
+        assertTrue(instance.getCutoffs() > 0);
+        assertTrue(instance.getFirstMoveCutoffs() > 0);
+        assertTrue(instance.getFirstMoveCutoffs() <= instance.getCutoffs());
+    }
+}
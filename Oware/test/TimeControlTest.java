@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alistair Madden
+ */
+public class TimeControlTest {
+    
+    public TimeControlTest() {
+    }
+
+    /**
+     * Test that the search deadline is the margin short of the limit.
+     */
+    @Test
+    public void testDeadline() {
+        
+        System.out.println("deadline");
+        
+        TimeControl instance = new TimeControl(1000, 150, 50);
+        
+        assertEquals(850, instance.getSearchTime());
+        assertEquals(5000 + 850000000L, instance.deadline(5000));
+    }
+
+    /**
+     * Test that a move forfeits only after the limit and grace period.
+     */
+    @Test
+    public void testExceeded() {
+        
+        System.out.println("exceeded");
+        
+        TimeControl instance = new TimeControl(1000, 150, 50);
+        
+        assertFalse(instance.exceeded(999000000L));
+        assertFalse(instance.exceeded(1050000000L));
+        assertTrue(instance.exceeded(1050000001L));
+    }
+
+    /**
+     * Test that a margin as long as the limit is rejected.
+     */
+    @Test
+    public void testMarginTooLong() {
+        
+        System.out.println("margin too long");
+        
+        try {
+            new TimeControl(1000, 1000, 0);
+            fail("a margin as long as the limit should throw");
+        }
+        catch(IllegalArgumentException ex) {
+        }
+    }
+}
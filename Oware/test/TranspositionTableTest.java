@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alistair Madden
+ */
+public class TranspositionTableTest {
+    
+    TranspositionTable instance;
+    
+    public TranspositionTableTest() {
+    }
+    
+    @Before
+    public void setUp() {
+        instance = new TranspositionTable(1, 
+                ReplacementPolicy.DEPTH_PREFERRED_AND_ALWAYS);
+    }
+
+    /**
+     * Test that a stored entry is returned by probe.
+     */
+    @Test
+    public void testStoreAndProbe() {
+        
+        System.out.println("store and probe");
+        
+        long key = 0x123456789ABCDEFL;
+        
+        assertEquals(0, instance.probe(key));
+        
+        instance.store(key, 12, TranspositionTable.LOWER, -19990, 4);
+        long entry = instance.probe(key);
+        
+        assertEquals(12, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(-19990, TranspositionTable.score(entry));
+        assertEquals(4, TranspositionTable.move(entry));
+    }
+
+    /**
+     * Test that a shallower result does not replace a deeper one in the
+     * depth-preferred entry.
+     */
+    @Test
+    public void testDepthPreferred() {
+        
+        System.out.println("depth preferred");
+        
+        long capacity = instance.capacity();
+        long deep = 5;
+        long shallow1 = deep + capacity / 2;
+        long shallow2 = deep + capacity;
+        
+        // All three keys fall in the same bucket.
+        instance.store(deep, 10, TranspositionTable.EXACT, 100, 1);
+        instance.store(shallow1, 2, TranspositionTable.EXACT, 200, 2);
+        instance.store(shallow2, 3, TranspositionTable.EXACT, 300, 3);
+        
+        assertEquals(100, TranspositionTable.score(instance.probe(deep)));
+        assertEquals(0, instance.probe(shallow1));
+        assertEquals(300, TranspositionTable.score(instance.probe(shallow2)));
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2015 Alistair Madden
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Alistair Madden
+ */
+public class YbwcSearchTest {
+
+    /**
+     * Test that a fixed-depth search gives the same result on any number of
+     * threads.
+     */
+    @Test
+    public void testSearchIsDeterministic() throws Exception {
+        
+        System.out.println("search is deterministic");
+        
+        BoardImpl board = new BoardImpl();
+        board.makeMove(3, 1);
+        board.makeMove(5, 2);
+        
+        YbwcSearch serial = new YbwcSearch(1);
+        YbwcSearch parallel = new YbwcSearch(3);
+        
+        int move = serial.search(board, 1, Long.MAX_VALUE, 8);
+        
+        for(int i = 0; i < 3; i++) {
+            assertEquals(move, parallel.search(board, 1, Long.MAX_VALUE, 8));
+            assertEquals(serial.getBestScore(), parallel.getBestScore());
+            assertEquals(8, parallel.getCompletedDepth());
+        }
+        
+        serial.shutdown();
+        parallel.shutdown();
+    }
+}